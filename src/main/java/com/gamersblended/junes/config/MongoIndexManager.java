@@ -0,0 +1,197 @@
+package com.gamersblended.junes.config;
+
+import com.gamersblended.junes.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declares the indexes of the products collection on startup and optionally checks that no query shape scans the collection
+ * Creating an index that already exists with the same definition is a no-op, so every node can run this
+ */
+@Slf4j
+@Component
+public class MongoIndexManager {
+
+    private static final String PLATFORM = "platform";
+    private static final String RELEASE_DATE = "release_date";
+    private static final String CREATED_ON = "created_on";
+    private static final String UNITS_SOLD = "units_sold";
+    private static final String COLLSCAN = "COLLSCAN";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${mongo.indexes.verify-query-plans:false}")
+    private boolean verifyQueryPlans;
+
+    @Value("${mongo.indexes.fail-on-collscan:false}")
+    private boolean failOnCollscan;
+
+    public MongoIndexManager(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureProductIndexes();
+
+        if (verifyQueryPlans) {
+            verifyProductQueryPlans();
+        }
+    }
+
+    public void ensureProductIndexes() {
+        IndexOperations indexOperations = mongoTemplate.indexOps(Product.class);
+
+        for (Index index : productIndexes()) {
+            String indexName = indexOperations.ensureIndex(index);
+            log.info("[MongoIndexManager] Ensured index {} on products", indexName);
+        }
+    }
+
+    /**
+     * Runs explain() on every query shape the product repositories emit
+     *
+     * @return query shapes whose winning plan is a collection scan
+     */
+    public List<String> verifyProductQueryPlans() {
+        String collectionName = mongoTemplate.getCollectionName(Product.class);
+        List<String> collscanShapeList = new ArrayList<>();
+
+        productQueryShapes().forEach((shape, filterAndSort) -> {
+            Document explanation = mongoTemplate.getCollection(collectionName)
+                    .find(filterAndSort[0])
+                    .sort(filterAndSort[1])
+                    .limit(20)
+                    .explain();
+
+            Document queryPlanner = explanation.get("queryPlanner", Document.class);
+            Object winningPlan = null == queryPlanner ? null : queryPlanner.get("winningPlan");
+
+            if (containsStage(winningPlan, COLLSCAN)) {
+                log.warn("[MongoIndexManager] COLLSCAN for query shape = {}, filter = {}, sort = {}", shape,
+                        filterAndSort[0].toJson(), filterAndSort[1].toJson());
+                collscanShapeList.add(shape);
+            } else {
+                log.info("[MongoIndexManager] Index used for query shape = {}", shape);
+            }
+        });
+
+        if (!collscanShapeList.isEmpty() && failOnCollscan) {
+            throw new IllegalStateException("Query shapes scanning the products collection: " + collscanShapeList);
+        }
+        return collscanShapeList;
+    }
+
+    private static List<Index> productIndexes() {
+        return List.of(
+                // Listings: platform is always filtered on, the second key serves the sort or range filter
+                new Index().on(PLATFORM, Sort.Direction.ASC).on(RELEASE_DATE, Sort.Direction.ASC).named("platform_release_date"),
+                new Index().on(PLATFORM, Sort.Direction.ASC).on("price", Sort.Direction.ASC).named("platform_price"),
+                new Index().on(PLATFORM, Sort.Direction.ASC).on(UNITS_SOLD, Sort.Direction.ASC).named("platform_units_sold"),
+                new Index().on(PLATFORM, Sort.Direction.ASC).on("name", Sort.Direction.ASC).named("platform_name"),
+                new Index().on(PLATFORM, Sort.Direction.ASC).on(CREATED_ON, Sort.Direction.ASC).named("platform_created_on"),
+                new Index().on(PLATFORM, Sort.Direction.ASC).on("genres", Sort.Direction.ASC).named("platform_genres"),
+                new Index().on(PLATFORM, Sort.Direction.ASC).on("region", Sort.Direction.ASC).named("platform_region"),
+
+                // Front page sliders
+                new Index().on(CREATED_ON, Sort.Direction.ASC).on(UNITS_SOLD, Sort.Direction.DESC).named("created_on_units_sold"),
+                new Index().on(RELEASE_DATE, Sort.Direction.ASC).named("release_date"),
+                new Index().on(UNITS_SOLD, Sort.Direction.DESC).named("units_sold"),
+
+                // Product details
+                new Index().on("slug", Sort.Direction.ASC).named("slug")
+        );
+    }
+
+    // Shape name -> {filter, sort}, mirrors CustomProductRepositoryImpl and ProductRepository
+    private static Map<String, Document[]> productQueryShapes() {
+        String platform = "Nintendo Switch";
+        String today = LocalDate.now().toString();
+        Map<String, Document[]> shapeMap = new LinkedHashMap<>();
+
+        // Listing sorts, with the _id tie-breaker used by cursor pagination
+        for (String sortField : List.of("_id", "price", RELEASE_DATE, UNITS_SOLD, "name", CREATED_ON)) {
+            Document sort = new Document(sortField, 1);
+            if (!"_id".equals(sortField)) {
+                sort.append("_id", 1);
+            }
+            shapeMap.put("listing sorted by " + sortField, new Document[]{new Document(PLATFORM, platform), sort});
+        }
+
+        // Listing filters
+        shapeMap.put("listing by name", new Document[]{
+                new Document(PLATFORM, platform).append("name", new Document("$regex", ".*mario.*").append("$options", "i")),
+                new Document()});
+        shapeMap.put("listing by price range", new Document[]{
+                new Document(PLATFORM, platform).append("price", new Document("$gte", 10.0).append("$lte", 50.0)),
+                new Document()});
+        shapeMap.put("listing by genres", new Document[]{
+                new Document(PLATFORM, platform).append("genres", new Document("$in", List.of("RPG"))),
+                new Document()});
+        shapeMap.put("listing by region", new Document[]{
+                new Document(PLATFORM, platform).append("region", new Document("$in", List.of("Asia"))),
+                new Document()});
+        shapeMap.put("listing by release month", new Document[]{
+                new Document(PLATFORM, platform).append("$or", List.of(
+                        new Document(RELEASE_DATE, new Document("$gte", "2025-01-01").append("$lte", "2025-01-31")))),
+                new Document()});
+        shapeMap.put("listing in stock", new Document[]{
+                new Document(PLATFORM, platform).append("stock", new Document("$gt", 0))
+                        .append(RELEASE_DATE, new Document("$lte", today)),
+                new Document()});
+        shapeMap.put("listing preorders", new Document[]{
+                new Document(PLATFORM, platform).append(RELEASE_DATE, new Document("$gt", today)),
+                new Document()});
+
+        // ProductRepository finders
+        shapeMap.put("best sellers", new Document[]{
+                new Document(CREATED_ON, new Document("$lte", today)),
+                new Document(UNITS_SOLD, -1)});
+        shapeMap.put("preorder slider", new Document[]{
+                new Document(RELEASE_DATE, new Document("$gt", today)),
+                new Document(RELEASE_DATE, 1)});
+        shapeMap.put("all by units sold", new Document[]{
+                new Document(),
+                new Document(UNITS_SOLD, -1)});
+        shapeMap.put("details by slug", new Document[]{
+                new Document("slug", "super-mario-odyssey"),
+                new Document()});
+
+        return shapeMap;
+    }
+
+    // Plans nest through inputStage / inputStages / queryPlan depending on server version
+    private static boolean containsStage(Object plan, String stage) {
+        if (plan instanceof Document planDocument) {
+            if (stage.equals(planDocument.getString("stage"))) {
+                return true;
+            }
+            for (Object child : planDocument.values()) {
+                if (containsStage(child, stage)) {
+                    return true;
+                }
+            }
+        } else if (plan instanceof List<?> planList) {
+            for (Object child : planList) {
+                if (containsStage(child, stage)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
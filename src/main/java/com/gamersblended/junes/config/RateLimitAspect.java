@@ -19,6 +19,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import reactor.core.publisher.Mono;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
@@ -63,7 +64,10 @@ public class RateLimitAspect {
         String clientKey = getClientKey(request, rateLimit, joinPoint, method);
 
         if (!rateLimiterService.isAllowed(clientKey, rateLimit)) {
-            return handleRateLimitExceeded(clientKey, rateLimit);
+            ResponseEntity<?> rateLimitResponse = handleRateLimitExceeded(clientKey, rateLimit);
+
+            // Async endpoints must still get the type they declare
+            return Mono.class.isAssignableFrom(method.getReturnType()) ? Mono.just(rateLimitResponse) : rateLimitResponse;
         }
 
         return joinPoint.proceed();
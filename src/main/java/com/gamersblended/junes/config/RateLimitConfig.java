@@ -3,9 +3,12 @@ package com.gamersblended.junes.config;
 import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
 import io.github.bucket4j.redis.lettuce.Bucket4jLettuce;
 import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
 import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
 import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.codec.StringCodec;
@@ -14,6 +17,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.List;
 
 @Configuration
 public class RateLimitConfig {
@@ -24,19 +28,53 @@ public class RateLimitConfig {
     @Value("${spring.data.redis.port:6379}")
     private int redisPort;
 
+    @Value("${spring.data.redis.password:}")
+    private String redisPassword;
+
+    @Value("${spring.data.redis.cluster.nodes:}")
+    private List<String> clusterNodes;
+
     @Bean(destroyMethod = "shutdown")
-    public RedisClient redisClient() {
-        RedisURI redisURI = RedisURI.Builder.redis(redisHost, redisPort).build();
-        return RedisClient.create(redisURI);
+    public AbstractRedisClient redisClient() {
+        if (clusterNodes.isEmpty()) {
+            return RedisClient.create(toRedisURI(redisHost, redisPort));
+        }
+
+        List<RedisURI> redisURIList = clusterNodes.stream()
+                .map(String::trim)
+                .map(node -> {
+                    int separatorIndex = node.lastIndexOf(':');
+                    return toRedisURI(node.substring(0, separatorIndex), Integer.parseInt(node.substring(separatorIndex + 1)));
+                })
+                .toList();
+        return RedisClusterClient.create(redisURIList);
     }
 
     @Bean
-    public LettuceBasedProxyManager<String> proxyManager(RedisClient redisClient) {
-        StatefulRedisConnection<String, byte[]> connection = redisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+    public LettuceBasedProxyManager<String> proxyManager(AbstractRedisClient redisClient) {
+        RedisCodec<String, byte[]> codec = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+
+        // Each bucket is a single key, so buckets spread over the cluster without hash tags
+        if (redisClient instanceof RedisClusterClient redisClusterClient) {
+            StatefulRedisClusterConnection<String, byte[]> connection = redisClusterClient.connect(codec);
+            return Bucket4jLettuce.casBasedBuilder(connection)
+                    .expirationAfterWrite(ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(Duration.ofMinutes(10)))
+                    .build();
+        }
+
+        StatefulRedisConnection<String, byte[]> connection = ((RedisClient) redisClient).connect(codec);
 
         return Bucket4jLettuce.casBasedBuilder(connection)
                 .expirationAfterWrite(ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(Duration.ofMinutes(10)))
                 .build();
     }
 
+    private RedisURI toRedisURI(String host, int port) {
+        RedisURI.Builder builder = RedisURI.Builder.redis(host, port);
+        if (!redisPassword.isEmpty()) {
+            builder.withPassword(redisPassword.toCharArray());
+        }
+        return builder.build();
+    }
+
 }
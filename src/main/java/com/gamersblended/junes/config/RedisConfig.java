@@ -6,16 +6,27 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.gamersblended.junes.dto.recommender.RecommendationResponseDTO;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 public class RedisConfig {
 
@@ -28,8 +39,20 @@ public class RedisConfig {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
 
+    // host:port of some cluster nodes, the rest are discovered, empty for a standalone Redis
+    @Value("${spring.data.redis.cluster.nodes:}")
+    private List<String> clusterNodes;
+
+    @Value("${spring.data.redis.cluster.max-redirects:3}")
+    private int clusterMaxRedirects;
+
+    // Declared as Lettuce, so the factory is also found as a ReactiveRedisConnectionFactory
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
+    public LettuceConnectionFactory redisConnectionFactory() {
+        if (!clusterNodes.isEmpty()) {
+            return clusterConnectionFactory();
+        }
+
         RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration();
         redisConfig.setHostName(redisHost);
         redisConfig.setPort(redisPort);
@@ -41,6 +64,27 @@ public class RedisConfig {
         return new LettuceConnectionFactory(redisConfig);
     }
 
+    private LettuceConnectionFactory clusterConnectionFactory() {
+        RedisClusterConfiguration clusterConfig = new RedisClusterConfiguration(clusterNodes);
+        clusterConfig.setMaxRedirects(clusterMaxRedirects);
+
+        if (!redisPassword.isEmpty()) {
+            clusterConfig.setPassword(redisPassword);
+        }
+
+        // Follow slot moves and failovers without waiting for a MOVED reply on every key
+        ClusterTopologyRefreshOptions topologyRefreshOptions = ClusterTopologyRefreshOptions.builder()
+                .enableAllAdaptiveRefreshTriggers()
+                .enablePeriodicRefresh(Duration.ofSeconds(30))
+                .build();
+
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .clientOptions(ClusterClientOptions.builder().topologyRefreshOptions(topologyRefreshOptions).build())
+                .build();
+
+        return new LettuceConnectionFactory(clusterConfig, clientConfig);
+    }
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -53,12 +97,26 @@ public class RedisConfig {
         return template;
     }
 
+    // Recommendation responses as JSON, read and written without blocking a thread on Redis
     @Bean
-    public RedisTemplate<String, RecommendationResponseDTO> recommendationRedisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, RecommendationResponseDTO> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
-        template.setKeySerializer(new StringRedisSerializer());
+    public ReactiveRedisTemplate<String, RecommendationResponseDTO> reactiveRecommendationRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        RedisSerializationContext<String, RecommendationResponseDTO> serializationContext = RedisSerializationContext
+                .<String, RecommendationResponseDTO>newSerializationContext(new StringRedisSerializer())
+                .value(recommendationSerializer())
+                .build();
 
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
+
+    // Pub/sub subscriptions, e.g. cross-node L1 invalidation of two-tier caches
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    private static Jackson2JsonRedisSerializer<RecommendationResponseDTO> recommendationSerializer() {
         ObjectMapper objectMapper = new ObjectMapper()
                 .registerModule(new JavaTimeModule())
                 .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
@@ -68,12 +126,7 @@ public class RedisConfig {
                         JsonTypeInfo.As.PROPERTY
                 );
 
-        Jackson2JsonRedisSerializer<RecommendationResponseDTO> serializer =
-                new Jackson2JsonRedisSerializer<>(objectMapper, RecommendationResponseDTO.class);
-
-        template.setValueSerializer(serializer);
-        template.afterPropertiesSet();
-        return template;
+        return new Jackson2JsonRedisSerializer<>(objectMapper, RecommendationResponseDTO.class);
     }
 
 }
@@ -0,0 +1,7 @@
+package com.gamersblended.junes.constant;
+
+public enum CartMutationType {
+    ADD,            // Adds quantity, creates the item if missing
+    SET_QUANTITY,   // Sets quantity of an item already in cart, 0 or less removes it
+    REMOVE
+}
@@ -2,7 +2,8 @@ package com.gamersblended.junes.controller;
 
 import com.gamersblended.junes.annotation.RateLimit;
 import com.gamersblended.junes.dto.CartItemDTO;
-import com.gamersblended.junes.dto.ProductInCartDTO;
+import com.gamersblended.junes.dto.request.BulkCartMutationRequest;
+import com.gamersblended.junes.dto.response.CartPageResponse;
 import com.gamersblended.junes.dto.response.ErrorResponseDTO;
 import com.gamersblended.junes.service.AccessTokenService;
 import com.gamersblended.junes.service.CartService;
@@ -12,7 +13,6 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -36,7 +36,9 @@ public class CartController {
 
     @Operation(summary = "Get products in user's cart")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Paged list of products in cart"),
+            @ApiResponse(responseCode = "200", description = "Products in cart with current prices and cart totals",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CartPageResponse.class))}),
             @ApiResponse(responseCode = "400", description = "User ID or Session ID required",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponseDTO.class))}),
@@ -48,8 +50,8 @@ public class CartController {
                             schema = @Schema(implementation = ErrorResponseDTO.class))})
     })
     @GetMapping("/products")
-    public ResponseEntity<Page<ProductInCartDTO>> getCartProducts(@RequestHeader(value = "Authorization", required = false) String authHeader,
-                                                                  @RequestHeader(value = "X-Session-Id", required = false) UUID sessionID, Pageable pageable) {
+    public ResponseEntity<CartPageResponse> getCartProducts(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                                         @RequestHeader(value = "X-Session-Id", required = false) UUID sessionID, Pageable pageable) {
         log.info("Calling get shopping cart product(s) API, page {}", pageable.getPageNumber());
 
         UUID userID = accessTokenService.extractUserIDFromToken(authHeader);
@@ -153,6 +155,38 @@ public class CartController {
         return ResponseEntity.ok("Quantity updated successfully");
     }
 
+    @Operation(summary = "Apply many product additions, quantity changes and removals to user's cart at once")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cart updated",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = String.class))}),
+            @ApiResponse(responseCode = "400", description = "User ID or Session ID required",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponseDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid quantity or too many changes given",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponseDTO.class))}),
+            @ApiResponse(responseCode = "404", description = "Product ID not found",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponseDTO.class))}),
+            @ApiResponse(responseCode = "500", description = "Corrupt cart data",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponseDTO.class))}),
+            @ApiResponse(responseCode = "500", description = "Failed to serialise cart",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponseDTO.class))})
+    })
+    @PostMapping("/items/bulk")
+    public ResponseEntity<String> applyCartMutations(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                                     @RequestHeader(value = "X-Session-Id", required = false) UUID sessionID,
+                                                     @RequestBody BulkCartMutationRequest bulkCartMutationRequest) {
+        log.info("Calling bulk cart update API");
+
+        UUID userID = accessTokenService.extractUserIDFromToken(authHeader);
+        cartService.applyCartMutations(userID, sessionID, bulkCartMutationRequest.getMutationList());
+        return ResponseEntity.ok("Cart updated");
+    }
+
     @Operation(summary = "Clear user's cart")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Cart cleared successfully",
@@ -20,6 +20,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.util.UUID;
@@ -77,12 +78,15 @@ public class FrontPageController {
                     content = @Content)
     })
     @PostMapping("/recommended")
-    public ResponseEntity<Page<ProductSliderItemDTO>> getRecommendedProductsLoggedIn(@Valid @RequestBody RecommendedProductRequestDTO requestDTO,
-                                                                                     @RequestHeader(value = "Authorization", required = false) String authHeader,
-                                                                                     @RequestHeader(value = "X-Session-Id", required = false) UUID sessionID, Pageable pageable) {
+    public Mono<ResponseEntity<Page<ProductSliderItemDTO>>> getRecommendedProductsLoggedIn(@Valid @RequestBody RecommendedProductRequestDTO requestDTO,
+                                                                                           @RequestHeader(value = "Authorization", required = false) String authHeader,
+                                                                                           @RequestHeader(value = "X-Session-Id", required = false) UUID sessionID, Pageable pageable) {
         log.info("Calling get recommended products API, page {}!", pageable.getPageNumber());
         UUID userID = accessTokenService.extractUserIDFromToken(authHeader);
-        return ResponseEntity.ok(productService.getRecommendedProducts(requestDTO, pageable, userID, sessionID));
+
+        // Request thread is released here, the response is written when the Mono completes
+        return productService.getRecommendedProducts(requestDTO, pageable, userID, sessionID)
+                .map(ResponseEntity::ok);
     }
 
     @Operation(summary = "Get a list of preorder products")
@@ -2,9 +2,13 @@ package com.gamersblended.junes.controller;
 
 import com.gamersblended.junes.annotation.RateLimit;
 import com.gamersblended.junes.dto.ProductDetailsDTO;
+import com.gamersblended.junes.dto.ProductFacetCountsDTO;
 import com.gamersblended.junes.dto.ProductSliderItemDTO;
+import com.gamersblended.junes.dto.ProductSuggestionDTO;
+import com.gamersblended.junes.dto.response.CursorPageResponse;
 import com.gamersblended.junes.dto.response.ErrorResponseDTO;
 import com.gamersblended.junes.service.ProductService;
+import com.gamersblended.junes.service.cache.ProductDetailsCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,8 +17,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -78,12 +85,124 @@ public class ProductController {
                 pageable));
     }
 
+    @Operation(summary = "Get products under a given platform by cursor, for infinite scrolling without page numbers or total count")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved products after the given cursor.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid search parameters, sort or cursor provided.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponseDTO.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server or database error occurred while fetching products.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponseDTO.class))}),
+    })
+    @GetMapping("/products/{platform}/scroll")
+    public ResponseEntity<CursorPageResponse<ProductSliderItemDTO>> getProductListingByCursor(
+            @PathVariable String platform,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) List<String> availability,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) List<String> genres,
+            @RequestParam(required = false) List<String> regions,
+            @RequestParam(required = false) List<String> publishers,
+            @RequestParam(required = false) List<String> editions,
+            @RequestParam(required = false) List<String> languages,
+            @RequestParam(required = false) List<String> startingLetters,
+            @RequestParam(required = false) List<String> releaseDates,
+            @RequestParam(required = false) String currentDate,
+            @RequestParam(required = false) String cursor,
+            Pageable pageable) {
+        log.info("Calling get product listings by cursor API for platform: {}, first page = {}, sort by = {}!", platform, null == cursor, pageable.getSort());
+        return ResponseEntity.ok(productService.getProductListingsByCursor(
+                platform,
+                name,
+                availability,
+                minPrice,
+                maxPrice,
+                genres,
+                regions,
+                publishers,
+                editions,
+                languages,
+                startingLetters,
+                releaseDates,
+                currentDate,
+                cursor,
+                pageable));
+    }
+
+    @Operation(summary = "Get facet counts for the product listing under a given platform")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved number of products per genre, region, publisher, edition and language.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ProductFacetCountsDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid search parameters or malformed query filters provided.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponseDTO.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server or database error occurred while counting products.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponseDTO.class))}),
+    })
+    @GetMapping("/products/{platform}/facets")
+    public ResponseEntity<ProductFacetCountsDTO> getProductFacetCounts(
+            @PathVariable String platform,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) List<String> availability,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) List<String> genres,
+            @RequestParam(required = false) List<String> regions,
+            @RequestParam(required = false) List<String> publishers,
+            @RequestParam(required = false) List<String> editions,
+            @RequestParam(required = false) List<String> languages,
+            @RequestParam(required = false) List<String> startingLetters,
+            @RequestParam(required = false) List<String> releaseDates,
+            @RequestParam(required = false) String currentDate) {
+        log.info("Calling get product facet counts API for platform: {}!", platform);
+        return ResponseEntity.ok(productService.getProductFacetCounts(
+                platform,
+                name,
+                availability,
+                minPrice,
+                maxPrice,
+                genres,
+                regions,
+                publishers,
+                editions,
+                languages,
+                startingLetters,
+                releaseDates,
+                currentDate));
+    }
+
+    @Operation(summary = "Get search-as-you-type product suggestions")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved product suggestions, best sellers first.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ProductSuggestionDTO.class))}),
+            @ApiResponse(responseCode = "400", description = "Query too long or invalid platform provided.",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponseDTO.class))}),
+    })
+    @GetMapping("/suggestions")
+    @RateLimit(requests = 600, duration = 1, timeUnit = TimeUnit.MINUTES) // One call per keystroke
+    public ResponseEntity<List<ProductSuggestionDTO>> getProductSuggestions(
+            @RequestParam String query,
+            @RequestParam(required = false) String platform,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.getProductSuggestions(query, platform, limit));
+    }
+
     @Operation(summary = "Get product details by slug")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200", description = "Successfully retrieved product details and variants.",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ProductDetailsDTO.class))),
+            @ApiResponse(
+                    responseCode = "304", description = "Product details unchanged since the ETag given in If-None-Match."),
             @ApiResponse(
                     responseCode = "404", description = "No product found matching the provided slug.",
                     content = @Content(mediaType = "application/json",
@@ -93,8 +212,18 @@ public class ProductController {
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponseDTO.class)))})
     @GetMapping("/details/{productSlug}")
-    public ResponseEntity<ProductDetailsDTO> getProductDetails(@PathVariable String productSlug) {
+    public ResponseEntity<byte[]> getProductDetails(@PathVariable String productSlug, WebRequest webRequest) {
         log.info("Calling get product details API for title: {}!", productSlug);
-        return ResponseEntity.ok(productService.getProductDetails(productSlug));
+        ProductDetailsCacheService.CachedProductDetails productDetails = productService.getSerialisedProductDetails(productSlug);
+
+        // Matches If-None-Match, client copy is still current
+        if (webRequest.checkNotModified(productDetails.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(productDetails.getETag()).build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(productDetails.getETag())
+                .body(productDetails.getBody());
     }
 }
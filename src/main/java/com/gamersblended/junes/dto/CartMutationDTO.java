@@ -0,0 +1,18 @@
+package com.gamersblended.junes.dto;
+
+import com.gamersblended.junes.constant.CartMutationType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartMutationDTO {
+
+    private CartMutationType type;
+    private String productID;
+    private Integer quantity;
+}
@@ -0,0 +1,23 @@
+package com.gamersblended.junes.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Facet sidebar counts for a listing
+ * Each facet is counted under every filter except its own, so selecting a genre still shows the other genres' counts
+ * Values are ordered by count, highest first
+ */
+@Getter
+@Setter
+public class ProductFacetCountsDTO {
+
+    private long total;
+    private Map<String, Long> genres;
+    private Map<String, Long> regions;
+    private Map<String, Long> publishers;
+    private Map<String, Long> editions;
+    private Map<String, Long> languages;
+}
@@ -23,4 +23,9 @@ public class ProductInCartDTO {
     private Integer quantity;
     private LocalDateTime createdOn;
 
+    // Price when added to cart
+    private BigDecimal addedPrice;
+    private BigDecimal subtotal;
+    private Boolean isPriceChanged;
+
 }
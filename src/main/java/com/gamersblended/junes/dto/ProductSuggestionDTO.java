@@ -0,0 +1,16 @@
+package com.gamersblended.junes.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ProductSuggestionDTO {
+
+    private String productID;
+    private String name;
+    private String slug;
+    private String platform;
+    private String productImageUrl;
+    private Integer unitsSold;
+}
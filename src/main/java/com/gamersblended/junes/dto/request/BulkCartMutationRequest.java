@@ -0,0 +1,16 @@
+package com.gamersblended.junes.dto.request;
+
+import com.gamersblended.junes.dto.CartMutationDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkCartMutationRequest {
+
+    private List<CartMutationDTO> mutationList;
+}
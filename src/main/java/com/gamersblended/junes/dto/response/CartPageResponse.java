@@ -0,0 +1,34 @@
+package com.gamersblended.junes.dto.response;
+
+import com.gamersblended.junes.dto.ProductInCartDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartPageResponse {
+
+    private List<ProductInCartDTO> content;
+
+    private int pageNumber;
+
+    private int pageSize;
+
+    private long totalElements;
+
+    // Totals are over the whole cart at current prices, products no longer sold are left out
+    private int itemCount;
+
+    private BigDecimal totalPrice;
+
+    // True if any line's current price differs from the price when it was added
+    private boolean hasPriceChanges;
+
+    // Changes whenever catalogue prices change, equal versions mean equal prices
+    private long priceVersion;
+}
@@ -0,0 +1,20 @@
+package com.gamersblended.junes.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    private List<T> content;
+
+    // Pass back as cursor to get the next page, null on the last page
+    private String nextCursor;
+
+    private boolean hasNext;
+}
@@ -4,6 +4,7 @@ import com.gamersblended.junes.dto.ProductDTO;
 import com.gamersblended.junes.dto.ProductSliderItemDTO;
 import com.gamersblended.junes.dto.recommender.ProductRecommendationDTO;
 import com.gamersblended.junes.model.Product;
+import com.gamersblended.junes.model.ProductSummary;
 import org.bson.types.ObjectId;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -21,5 +22,8 @@ public interface ProductMapper {
     @Mapping(source = "id", target = "productID")
     ProductSliderItemDTO toSliderItemDTO(Product product);
 
+    @Mapping(source = "id", target = "productID")
+    ProductSliderItemDTO summaryToSliderItemDTO(ProductSummary productSummary);
+
     ProductSliderItemDTO recommendationToSliderItemDTO(ProductRecommendationDTO productRecommendationDTO);
 }
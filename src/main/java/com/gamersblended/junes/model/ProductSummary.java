@@ -0,0 +1,31 @@
+package com.gamersblended.junes.model;
+
+import lombok.Value;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of a products document with only what sliders, cart pages and order history display
+ * Skips description, image list and the set fields, which Product copies on every getter call
+ */
+@Value
+public class ProductSummary {
+
+    // Field list for @Query projections, keep in sync with the fields below
+    public static final String FIELDS = "{ '_id': 1, 'name': 1, 'slug': 1, 'price': 1, 'platform': 1, 'region': 1, 'edition': 1, 'product_image_url': 1 }";
+
+    @Field("_id")
+    ObjectId id;
+
+    String name;
+    String slug;
+    BigDecimal price;
+    String platform;
+    String region;
+    String edition;
+
+    @Field("product_image_url")
+    String productImageUrl;
+}
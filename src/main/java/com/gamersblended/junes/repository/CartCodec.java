@@ -0,0 +1,306 @@
+package com.gamersblended.junes.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gamersblended.junes.model.Cart;
+import com.gamersblended.junes.model.CartItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes carts for the JSON storage engine, the first byte of a stored cart says how the rest is laid out
+ * '{' is a Jackson JSON cart, as written before this codec, so old carts keep reading while they age out
+ * BINARY_V1 is a varint layout: presence flags, raw UUIDs, ObjectIds as 12 bytes, prices as unscaled longs, timestamps as epoch seconds and nanos
+ */
+@Component
+public class CartCodec {
+
+    private static final byte JSON = '{';
+    private static final byte BINARY_V1 = 0x01;
+
+    // Presence flags of cart fields
+    private static final int HAS_CART_ID = 1;
+    private static final int HAS_USER_ID = 1 << 1;
+    private static final int HAS_SESSION_ID = 1 << 2;
+    private static final int HAS_CREATED_ON = 1 << 3;
+    private static final int HAS_UPDATED_ON = 1 << 4;
+
+    // Presence flags of item fields
+    private static final int HAS_ITEM_ID = 1;
+    private static final int HAS_PRICE = 1 << 1;
+    private static final int HAS_ITEM_CREATED_ON = 1 << 2;
+    private static final int HAS_ITEM_UPDATED_ON = 1 << 3;
+    private static final int OBJECT_ID_PRODUCT = 1 << 4;
+
+    private static final int OBJECT_ID_HEX_LENGTH = 24;
+
+    private final ObjectMapper objectMapper;
+    private final boolean writeBinary;
+
+    public CartCodec(ObjectMapper objectMapper, @Value("${cart.storage.codec:binary}") String codec) {
+        this.objectMapper = objectMapper;
+        this.writeBinary = "binary".equalsIgnoreCase(codec);
+    }
+
+    public byte[] encode(Cart cart) throws IOException {
+        if (!writeBinary) {
+            return objectMapper.writeValueAsBytes(cart);
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(64 + cart.getItemList().size() * 40);
+        outputStream.write(BINARY_V1);
+
+        int flags = (null != cart.getCartID() ? HAS_CART_ID : 0)
+                | (null != cart.getUserID() ? HAS_USER_ID : 0)
+                | (null != cart.getSessionID() ? HAS_SESSION_ID : 0)
+                | (null != cart.getCreatedOn() ? HAS_CREATED_ON : 0)
+                | (null != cart.getUpdatedOn() ? HAS_UPDATED_ON : 0);
+        outputStream.write(flags);
+
+        writeUUID(outputStream, cart.getCartID());
+        writeUUID(outputStream, cart.getUserID());
+        writeUUID(outputStream, cart.getSessionID());
+        writeDateTime(outputStream, cart.getCreatedOn());
+        writeDateTime(outputStream, cart.getUpdatedOn());
+        writeVarLong(outputStream, null != cart.getVersion() ? cart.getVersion() : 0);
+
+        writeVarLong(outputStream, cart.getItemList().size());
+        for (CartItem item : cart.getItemList()) {
+            writeItem(outputStream, item);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * @param stored bytes as read from Redis, JSON or binary
+     * @return decoded cart
+     */
+    public Cart decode(byte[] stored) throws IOException {
+        if (0 == stored.length) {
+            throw new IOException("Empty cart value");
+        }
+        if (JSON == stored[0]) {
+            return objectMapper.readValue(stored, Cart.class);
+        }
+        if (BINARY_V1 != stored[0]) {
+            throw new IOException("Unknown cart format: " + stored[0]);
+        }
+
+        Reader reader = new Reader(stored, 1);
+        int flags = reader.readByte();
+
+        Cart cart = Cart.builder()
+                .cartID(0 != (flags & HAS_CART_ID) ? reader.readUUID() : null)
+                .userID(0 != (flags & HAS_USER_ID) ? reader.readUUID() : null)
+                .sessionID(0 != (flags & HAS_SESSION_ID) ? reader.readUUID() : null)
+                .createdOn(0 != (flags & HAS_CREATED_ON) ? reader.readDateTime() : null)
+                .updatedOn(0 != (flags & HAS_UPDATED_ON) ? reader.readDateTime() : null)
+                .version((int) reader.readVarLong())
+                .build();
+
+        int itemCount = (int) reader.readVarLong();
+        List<CartItem> itemList = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            itemList.add(reader.readItem());
+        }
+        itemList.forEach(cart::addItem);
+        return cart;
+    }
+
+    private static void writeItem(ByteArrayOutputStream outputStream, CartItem item) {
+        boolean isObjectID = isObjectIDHex(item.getProductID());
+        int flags = (null != item.getCartItemID() ? HAS_ITEM_ID : 0)
+                | (null != item.getPrice() ? HAS_PRICE : 0)
+                | (null != item.getCreatedOn() ? HAS_ITEM_CREATED_ON : 0)
+                | (null != item.getUpdatedOn() ? HAS_ITEM_UPDATED_ON : 0)
+                | (isObjectID ? OBJECT_ID_PRODUCT : 0);
+        outputStream.write(flags);
+
+        if (isObjectID) {
+            outputStream.writeBytes(HexFormat.of().parseHex(item.getProductID()));
+        } else {
+            writeString(outputStream, item.getProductID());
+        }
+
+        writeUUID(outputStream, item.getCartItemID());
+        if (null != item.getPrice()) {
+            writeDecimal(outputStream, item.getPrice());
+        }
+        writeVarLong(outputStream, item.getQuantity());
+        writeDateTime(outputStream, item.getCreatedOn());
+        writeDateTime(outputStream, item.getUpdatedOn());
+    }
+
+    // Lower case only, upper case IDs would not survive the round trip
+    private static boolean isObjectIDHex(String productID) {
+        if (null == productID || productID.length() != OBJECT_ID_HEX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < productID.length(); i++) {
+            char c = productID.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeUUID(ByteArrayOutputStream outputStream, UUID id) {
+        if (null == id) {
+            return;
+        }
+        writeFixedLong(outputStream, id.getMostSignificantBits());
+        writeFixedLong(outputStream, id.getLeastSignificantBits());
+    }
+
+    // Wall-clock time of the LocalDateTime read as UTC, no zone involved either way
+    private static void writeDateTime(ByteArrayOutputStream outputStream, LocalDateTime dateTime) {
+        if (null == dateTime) {
+            return;
+        }
+        Instant instant = dateTime.toInstant(ZoneOffset.UTC);
+        writeVarLong(outputStream, zigZag(instant.getEpochSecond()));
+        writeVarLong(outputStream, instant.getNano());
+    }
+
+    // Unscaled value as a varint when it fits in a long, which any price does
+    private static void writeDecimal(ByteArrayOutputStream outputStream, BigDecimal value) {
+        writeVarLong(outputStream, zigZag(value.scale()));
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < Long.SIZE) {
+            outputStream.write(0);
+            writeVarLong(outputStream, zigZag(unscaled.longValueExact()));
+        } else {
+            outputStream.write(1);
+            byte[] bytes = unscaled.toByteArray();
+            writeVarLong(outputStream, bytes.length);
+            outputStream.writeBytes(bytes);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream outputStream, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(outputStream, bytes.length);
+        outputStream.writeBytes(bytes);
+    }
+
+    private static void writeFixedLong(ByteArrayOutputStream outputStream, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            outputStream.write((int) (value >>> shift));
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream outputStream, long value) {
+        while ((value & ~0x7FL) != 0) {
+            outputStream.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        outputStream.write((int) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Cursor over a binary cart, every read fails with IOException past the end
+     */
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private CartItem readItem() throws IOException {
+            int flags = readByte();
+
+            CartItem item = new CartItem();
+            item.setProductID(0 != (flags & OBJECT_ID_PRODUCT)
+                    ? HexFormat.of().formatHex(readBytes(OBJECT_ID_HEX_LENGTH / 2))
+                    : readString());
+            item.setCartItemID(0 != (flags & HAS_ITEM_ID) ? readUUID() : null);
+            item.setPrice(0 != (flags & HAS_PRICE) ? readDecimal() : null);
+            item.setQuantity((int) readVarLong());
+            item.setCreatedOn(0 != (flags & HAS_ITEM_CREATED_ON) ? readDateTime() : null);
+            item.setUpdatedOn(0 != (flags & HAS_ITEM_UPDATED_ON) ? readDateTime() : null);
+            return item;
+        }
+
+        private int readByte() throws IOException {
+            if (position >= bytes.length) {
+                throw new IOException("Truncated cart value");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        private byte[] readBytes(int length) throws IOException {
+            if (length < 0 || position + length > bytes.length) {
+                throw new IOException("Truncated cart value");
+            }
+            byte[] read = new byte[length];
+            System.arraycopy(bytes, position, read, 0, length);
+            position += length;
+            return read;
+        }
+
+        private long readFixedLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in cart value");
+        }
+
+        private UUID readUUID() throws IOException {
+            return new UUID(readFixedLong(), readFixedLong());
+        }
+
+        private LocalDateTime readDateTime() throws IOException {
+            long epochSecond = unZigZag(readVarLong());
+            return LocalDateTime.ofEpochSecond(epochSecond, (int) readVarLong(), ZoneOffset.UTC);
+        }
+
+        private BigDecimal readDecimal() throws IOException {
+            int scale = (int) unZigZag(readVarLong());
+            if (0 == readByte()) {
+                return BigDecimal.valueOf(unZigZag(readVarLong()), scale);
+            }
+            return new BigDecimal(new BigInteger(readBytes((int) readVarLong())), scale);
+        }
+
+        private String readString() throws IOException {
+            return new String(readBytes((int) readVarLong()), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.gamersblended.junes.repository;
+
+import com.gamersblended.junes.model.Cart;
+import com.gamersblended.junes.model.CartItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes many user carts to Postgres with one JDBC batch per statement, instead of a load-merge-save per cart
+ * Carts are matched on user_id, so the database keeps its own cart_id and the Redis cartID is only used for new rows
+ */
+@Slf4j
+@Repository
+public class CartDatabaseBatchWriter {
+
+    private static final String UPSERT_CART_SQL = """
+            INSERT INTO junes_rel.carts (cart_id, user_id, session_id, created_on, updated_on, version)
+            VALUES (?, ?, ?, ?, ?, 0)
+            ON CONFLICT (user_id) DO UPDATE
+            SET session_id = EXCLUDED.session_id, updated_on = EXCLUDED.updated_on, version = junes_rel.carts.version + 1
+            """;
+
+    // Items no longer in the Redis cart
+    private static final String DELETE_REMOVED_ITEMS_SQL = """
+            DELETE FROM junes_rel.cart_items ci
+            USING junes_rel.carts c
+            WHERE ci.cart_id = c.cart_id AND c.user_id = ? AND NOT (ci.product_id = ANY (?))
+            """;
+
+    private static final String UPSERT_ITEM_SQL = """
+            INSERT INTO junes_rel.cart_items (cart_item_id, cart_id, product_id, price, quantity, created_on, updated_on)
+            SELECT ?, c.cart_id, ?, ?, ?, ?, ? FROM junes_rel.carts c WHERE c.user_id = ?
+            ON CONFLICT (cart_id, product_id) DO UPDATE
+            SET price = EXCLUDED.price, quantity = EXCLUDED.quantity, updated_on = EXCLUDED.updated_on
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CartDatabaseBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param cartList user carts as read from Redis, each must have a userID
+     */
+    @Transactional
+    public void writeAll(List<Cart> cartList) {
+        if (cartList.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(UPSERT_CART_SQL, cartList, cartList.size(), (ps, cart) -> {
+            ps.setObject(1, null != cart.getCartID() ? cart.getCartID() : UUID.randomUUID());
+            ps.setObject(2, cart.getUserID());
+            ps.setObject(3, cart.getSessionID());
+            ps.setTimestamp(4, null != cart.getCreatedOn() ? Timestamp.valueOf(cart.getCreatedOn()) : now);
+            ps.setTimestamp(5, now);
+        });
+
+        jdbcTemplate.batchUpdate(DELETE_REMOVED_ITEMS_SQL, cartList, cartList.size(), (ps, cart) -> {
+            String[] productIDs = cart.getItemList().stream().map(CartItem::getProductID).toArray(String[]::new);
+            Array productIDArray = ps.getConnection().createArrayOf("varchar", productIDs);
+            ps.setObject(1, cart.getUserID());
+            ps.setArray(2, productIDArray);
+        });
+
+        List<CartItem> itemList = new ArrayList<>();
+        cartList.forEach(cart -> itemList.addAll(cart.getItemList()));
+
+        jdbcTemplate.batchUpdate(UPSERT_ITEM_SQL, itemList, itemList.size(), (ps, item) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setString(2, item.getProductID());
+            ps.setBigDecimal(3, item.getPrice());
+            ps.setInt(4, item.getQuantity());
+            ps.setTimestamp(5, null != item.getCreatedOn() ? Timestamp.valueOf(item.getCreatedOn()) : now);
+            ps.setTimestamp(6, now);
+            ps.setObject(7, item.getCart().getUserID());
+        });
+
+        log.info("[CartDatabaseBatchWriter] Wrote {} carts with {} items", cartList.size(), itemList.size());
+    }
+}
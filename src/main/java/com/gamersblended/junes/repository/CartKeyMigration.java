@@ -0,0 +1,100 @@
+package com.gamersblended.junes.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Renames cart keys written before hash tags, e.g. user:cart:<uuid> to user:cart:{<uuid>}, so live carts survive the key change
+ * Standalone only: RENAME cannot cross slots, and a cluster is expected to be filled with tagged keys from the start
+ * Runs once all beans exist but before the web server takes requests, so no request can create a tagged cart first
+ * RENAMENX keeps the TTL and never overwrites a tagged cart, so nodes running it at the same time are harmless
+ * Turn off with cart.storage.migrate-legacy-keys=false once no untagged keys are left
+ */
+@Slf4j
+@Component
+public class CartKeyMigration implements SmartInitializingSingleton {
+
+    private static final long SCAN_BATCH_SIZE = 1000;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean isEnabled;
+
+    public CartKeyMigration(RedisTemplate<String, String> redisTemplate,
+                            @Value("${cart.storage.migrate-legacy-keys:true}") boolean isEnabled,
+                            @Value("${spring.data.redis.cluster.nodes:}") List<String> clusterNodes) {
+        this.redisTemplate = redisTemplate;
+        this.isEnabled = isEnabled && clusterNodes.isEmpty();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrateLegacyKeys();
+    }
+
+    public void migrateLegacyKeys() {
+        if (!isEnabled) {
+            return;
+        }
+
+        long renamedCount = 0;
+        for (String prefix : CartKeys.ALL_PREFIXES) {
+            ScanOptions scanOptions = ScanOptions.scanOptions().match(prefix + "*").count(SCAN_BATCH_SIZE).build();
+
+            try (Cursor<String> cursor = redisTemplate.scan(scanOptions)) {
+                while (cursor.hasNext()) {
+                    String legacyKey = cursor.next();
+                    String taggedKey = toTaggedKey(prefix, legacyKey);
+                    if (null != taggedKey && rename(legacyKey, taggedKey)) {
+                        renamedCount++;
+                    }
+                }
+            } catch (Exception ex) {
+                // Not fatal, untagged carts are just not found until the next startup migrates them
+                log.error("[CartKeyMigration] Scan of {}* failed: {}", prefix, ex.getMessage());
+            }
+        }
+
+        log.info("[CartKeyMigration] Renamed {} untagged cart key(s)", renamedCount);
+    }
+
+    private boolean rename(String legacyKey, String taggedKey) {
+        try {
+            boolean isRenamed = Boolean.TRUE.equals(redisTemplate.renameIfAbsent(legacyKey, taggedKey));
+            if (!isRenamed) {
+                // Left in place for a manual merge, the tagged cart is the one being served
+                log.warn("[CartKeyMigration] Skipped {}, {} already exists", legacyKey, taggedKey);
+            }
+            return isRenamed;
+        } catch (Exception ex) {
+            // Expired, or renamed by another node in the meantime
+            log.warn("[CartKeyMigration] Could not rename {}: {}", legacyKey, ex.getMessage());
+            return false;
+        }
+    }
+
+    // Null if the key is already tagged or not a cart key, e.g. user:cart:<uuid>:version gives user:cart:{<uuid>}:version
+    private static String toTaggedKey(String prefix, String key) {
+        String rest = key.substring(prefix.length());
+        if (rest.startsWith("{")) {
+            return null;
+        }
+
+        int separatorIndex = rest.indexOf(':');
+        String id = separatorIndex < 0 ? rest : rest.substring(0, separatorIndex);
+        String suffix = separatorIndex < 0 ? "" : rest.substring(separatorIndex);
+
+        try {
+            return CartKeys.tagged(prefix, UUID.fromString(id)) + suffix;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.gamersblended.junes.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Redis key layout of live carts
+ * The user or session ID is a hash tag, so a cart, its sidecar keys and other per-user keys tagged the same way share one cluster slot
+ * and multi-key scripts on them work under Redis Cluster
+ */
+public final class CartKeys {
+
+    static final String JSON_USER_CART_PREFIX = "user:cart:";
+    static final String JSON_GUEST_CART_PREFIX = "cart:";
+
+    // Own prefixes, a hash must never land on a key still holding a JSON cart
+    static final String HASH_USER_CART_PREFIX = "user:hcart:";
+    static final String HASH_GUEST_CART_PREFIX = "hcart:";
+
+    static final List<String> ALL_PREFIXES = List.of(JSON_USER_CART_PREFIX, JSON_GUEST_CART_PREFIX, HASH_USER_CART_PREFIX, HASH_GUEST_CART_PREFIX);
+
+    public static final String VERSION_SUFFIX = ":version";
+
+    // Guest cart copied next to the user cart while it is merged, followed by the sessionID
+    static final String GUEST_STAGING_SUFFIX = ":guest:";
+
+    private CartKeys() {
+        /* This utility class should not be instantiated */
+    }
+
+    static String jsonCartKey(UUID userID, UUID sessionID) {
+        return null != userID ? tagged(JSON_USER_CART_PREFIX, userID) : tagged(JSON_GUEST_CART_PREFIX, sessionID);
+    }
+
+    /**
+     * @return key in the slot of the user cart to copy the guest cart of sessionID to
+     */
+    static String guestStagingKey(String userCartKey, UUID sessionID) {
+        return userCartKey + GUEST_STAGING_SUFFIX + sessionID;
+    }
+
+    static String hashCartKey(UUID userID, UUID sessionID) {
+        return null != userID ? tagged(HASH_USER_CART_PREFIX, userID) : tagged(HASH_GUEST_CART_PREFIX, sessionID);
+    }
+
+    /**
+     * @return key with id wrapped in braces, only the part in braces picks the cluster slot
+     */
+    public static String tagged(String prefix, UUID id) {
+        return prefix + "{" + id + "}";
+    }
+}
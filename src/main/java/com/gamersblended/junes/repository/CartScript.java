@@ -0,0 +1,240 @@
+package com.gamersblended.junes.repository;
+
+/**
+ * Every Lua script the cart storage engines run, loaded once by CartScriptRegistry
+ * Scripts return 1 when the cart was written, 0 when it was not
+ */
+public enum CartScript {
+
+    /**
+     * JSON engine: optimistic update, the version is kept in its own key so the cart is never decoded here
+     * KEYS[1] = cart, KEYS[2] = version, ARGV[1] = encoded cart, ARGV[2] = expected version, ARGV[3] = ttl
+     */
+    JSON_UPDATE_CART("""
+            local currentVersion = redis.call('GET', KEYS[2])
+
+            if currentVersion then
+              currentVersion = tonumber(currentVersion)
+            elseif redis.call('EXISTS', KEYS[1]) == 1 then
+              -- JSON cart written before the version had its own key, decoded this once only
+              currentVersion = cjson.decode(redis.call('GET', KEYS[1])).version
+            end
+
+            if currentVersion ~= nil and currentVersion ~= tonumber(ARGV[2]) then
+              -- Version mismatch, concurrent modification
+              return 0
+            end
+
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[3])
+            redis.call('SET', KEYS[2], tonumber(ARGV[2]) + 1, 'EX', ARGV[3])
+            return 1
+            """),
+
+    /**
+     * JSON engine: unconditional write of cart and version
+     * KEYS[1] = cart, KEYS[2] = version, ARGV[1] = encoded cart, ARGV[2] = version, ARGV[3] = ttl
+     */
+    JSON_SAVE_CART("""
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[3])
+            redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[3])
+            return 1
+            """),
+
+    /**
+     * JSON engine: writes the merged cart over the user cart and deletes the guest cart, if neither changed since read
+     * KEYS[1] = user cart, KEYS[2] = user version, KEYS[3] = guest cart or its staged copy, KEYS[4] = guest version
+     * ARGV[1] = encoded merged cart, ARGV[2] = expected user version (-1 if there was no user cart), ARGV[3] = expected guest version,
+     * ARGV[4] = ttl, ARGV[5] = merged version
+     */
+    JSON_MERGE_CARTS("""
+            local function currentVersion(cartKey, versionKey)
+              local version = redis.call('GET', versionKey)
+              if version then
+                return tonumber(version)
+              end
+              if redis.call('EXISTS', cartKey) == 1 then
+                return cjson.decode(redis.call('GET', cartKey)).version
+              end
+              return -1
+            end
+
+            if currentVersion(KEYS[3], KEYS[4]) ~= tonumber(ARGV[3]) or currentVersion(KEYS[1], KEYS[2]) ~= tonumber(ARGV[2]) then
+              return 0
+            end
+
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[4])
+            redis.call('SET', KEYS[2], ARGV[5], 'EX', ARGV[4])
+            redis.call('DEL', KEYS[3], KEYS[4])
+            return 1
+            """),
+
+    /**
+     * Hash engine, ARGV[1] = now, ARGV[2] = ttl, ARGV[3] = cartID, ARGV[4] = sessionID
+     */
+    HASH_CREATE_CART("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+              return 0
+            end
+
+            redis.call('HSET', KEYS[1], '@cartID', ARGV[3], '@sessionID', ARGV[4], '@createdOn', ARGV[1], '@updatedOn', ARGV[1], '@version', 0)
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """),
+
+    /**
+     * Hash engine, ARGV[3] = productID, ARGV[4] = quantity, ARGV[5] = price, ARGV[6] = item createdOn, ARGV[7] = cartID, ARGV[8] = sessionID
+     */
+    HASH_ADD_ITEM("""
+            local current = redis.call('HGET', KEYS[1], ARGV[3])
+
+            if current then
+              local separator = string.find(current, '|', 1, true)
+              local quantity = tonumber(string.sub(current, 1, separator - 1)) + tonumber(ARGV[4])
+              redis.call('HSET', KEYS[1], ARGV[3], quantity .. string.sub(current, separator))
+            else
+              redis.call('HSET', KEYS[1], ARGV[3], ARGV[4] .. '|' .. ARGV[5] .. '|' .. ARGV[6])
+            end
+
+            -- Only set when missing, so adding to a cart that does not exist yet creates it
+            redis.call('HSETNX', KEYS[1], '@cartID', ARGV[7])
+            redis.call('HSETNX', KEYS[1], '@sessionID', ARGV[8])
+            redis.call('HSETNX', KEYS[1], '@createdOn', ARGV[1])
+            """ + Fragments.TOUCH_CART),
+
+    /**
+     * Hash engine, ARGV[3] = productID
+     */
+    HASH_REMOVE_ITEM("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              return 0
+            end
+
+            redis.call('HDEL', KEYS[1], ARGV[3])
+            """ + Fragments.TOUCH_CART),
+
+    /**
+     * Hash engine, ARGV[3] = productID, ARGV[4] = quantity
+     */
+    HASH_UPDATE_QUANTITY("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              return 0
+            end
+
+            local quantity = tonumber(ARGV[4])
+            local current = redis.call('HGET', KEYS[1], ARGV[3])
+
+            if current then
+              if quantity <= 0 then
+                redis.call('HDEL', KEYS[1], ARGV[3])
+              else
+                local separator = string.find(current, '|', 1, true)
+                redis.call('HSET', KEYS[1], ARGV[3], quantity .. string.sub(current, separator))
+              end
+            end
+            """ + Fragments.TOUCH_CART),
+
+    /**
+     * Hash engine, ARGV[3] = cartID, ARGV[4] = sessionID, then per mutation from ARGV[5]: type, productID, quantity, price
+     */
+    HASH_APPLY_MUTATIONS("""
+            for i = 5, #ARGV, 4 do
+              local mutationType = ARGV[i]
+              local productID = ARGV[i + 1]
+              local quantity = tonumber(ARGV[i + 2])
+              local current = redis.call('HGET', KEYS[1], productID)
+
+              if mutationType == 'ADD' then
+                if current then
+                  local separator = string.find(current, '|', 1, true)
+                  redis.call('HSET', KEYS[1], productID, (tonumber(string.sub(current, 1, separator - 1)) + quantity) .. string.sub(current, separator))
+                else
+                  redis.call('HSET', KEYS[1], productID, quantity .. '|' .. ARGV[i + 3] .. '|' .. ARGV[1])
+                end
+              elseif mutationType == 'SET_QUANTITY' and current then
+                if quantity <= 0 then
+                  redis.call('HDEL', KEYS[1], productID)
+                else
+                  local separator = string.find(current, '|', 1, true)
+                  redis.call('HSET', KEYS[1], productID, quantity .. string.sub(current, separator))
+                end
+              elseif mutationType == 'REMOVE' then
+                redis.call('HDEL', KEYS[1], productID)
+              end
+            end
+
+            redis.call('HSETNX', KEYS[1], '@cartID', ARGV[3])
+            redis.call('HSETNX', KEYS[1], '@sessionID', ARGV[4])
+            redis.call('HSETNX', KEYS[1], '@createdOn', ARGV[1])
+            """ + Fragments.TOUCH_CART),
+
+    /**
+     * Hash engine, moves the guest cart into the user cart, quantities of products in both are added up
+     * KEYS[1] = user cart, KEYS[2] = guest cart or its staged copy, ARGV[3] = cartID if the user has no cart, ARGV[4] = sessionID
+     */
+    HASH_MERGE_CARTS("""
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+              return 0
+            end
+
+            local guestFields = redis.call('HGETALL', KEYS[2])
+            for i = 1, #guestFields, 2 do
+              local productID = guestFields[i]
+
+              if string.sub(productID, 1, 1) ~= '@' then
+                local guestItem = guestFields[i + 1]
+                local current = redis.call('HGET', KEYS[1], productID)
+
+                if current then
+                  local guestSeparator = string.find(guestItem, '|', 1, true)
+                  local separator = string.find(current, '|', 1, true)
+                  local quantity = tonumber(string.sub(current, 1, separator - 1)) + tonumber(string.sub(guestItem, 1, guestSeparator - 1))
+                  redis.call('HSET', KEYS[1], productID, quantity .. string.sub(current, separator))
+                else
+                  redis.call('HSET', KEYS[1], productID, guestItem)
+                end
+              end
+            end
+
+            redis.call('DEL', KEYS[2])
+            redis.call('HSETNX', KEYS[1], '@cartID', ARGV[3])
+            redis.call('HSETNX', KEYS[1], '@sessionID', ARGV[4])
+            redis.call('HSETNX', KEYS[1], '@createdOn', ARGV[1])
+            """ + Fragments.TOUCH_CART),
+
+    /**
+     * Hash engine, removes every item field and keeps the cart fields
+     */
+    HASH_CLEAR_CART("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              return 0
+            end
+
+            for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do
+              if string.sub(field, 1, 1) ~= '@' then
+                redis.call('HDEL', KEYS[1], field)
+              end
+            end
+            """ + Fragments.TOUCH_CART);
+
+    private final String scriptText;
+
+    CartScript(String scriptText) {
+        this.scriptText = scriptText;
+    }
+
+    public String getScriptText() {
+        return scriptText;
+    }
+
+    // Enum constants cannot refer to static fields of their own enum, so shared parts live here
+    private static final class Fragments {
+
+        // Shared tail of the hash item scripts, ARGV[1] = now, ARGV[2] = ttl
+        private static final String TOUCH_CART = """
+                redis.call('HSET', KEYS[1], '@updatedOn', ARGV[1])
+                redis.call('HINCRBY', KEYS[1], '@version', 1)
+                redis.call('EXPIRE', KEYS[1], ARGV[2])
+                return 1
+                """;
+    }
+}
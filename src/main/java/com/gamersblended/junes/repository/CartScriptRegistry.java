@@ -0,0 +1,124 @@
+package com.gamersblended.junes.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads every CartScript into Redis once on startup and runs them with EVALSHA, so only the SHA goes over the wire
+ * On NOSCRIPT (Redis restarted, failed over or flushed its script cache) the script is loaded again and retried once
+ */
+@Slf4j
+@Component
+public class CartScriptRegistry {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Map<CartScript, String> shaByScript = new ConcurrentHashMap<>();
+
+    public CartScriptRegistry(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+
+        // Same SHA Redis computes, so scripts can be run before loadAll has been reached
+        for (CartScript script : CartScript.values()) {
+            shaByScript.put(script, sha1Hex(script.getScriptText()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (CartScript script : CartScript.values()) {
+                    load(connection, script);
+                }
+                return null;
+            });
+            log.info("[CartScriptRegistry] Loaded {} cart scripts", shaByScript.size());
+        } catch (Exception ex) {
+            // Not fatal, each script is loaded on its first NOSCRIPT instead
+            log.error("[CartScriptRegistry] Could not preload cart scripts: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * @param script script to run
+     * @param keys   KEYS of the script
+     * @param args   ARGV of the script
+     * @return integer reply of the script
+     */
+    public Long execute(CartScript script, List<String> keys, String... args) {
+        byte[][] argBytes = new byte[args.length][];
+        for (int i = 0; i < args.length; i++) {
+            argBytes[i] = args[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return execute(script, keys, argBytes);
+    }
+
+    /**
+     * Same as above, for binary arguments such as encoded carts
+     */
+    public Long execute(CartScript script, List<String> keys, byte[]... args) {
+        byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+        for (int i = 0; i < keys.size(); i++) {
+            keysAndArgs[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        System.arraycopy(args, 0, keysAndArgs, keys.size(), args.length);
+
+        return redisTemplate.execute((RedisCallback<Long>) connection -> {
+            try {
+                return evalSha(connection, script, keys.size(), keysAndArgs);
+            } catch (Exception ex) {
+                if (!isNoScript(ex)) {
+                    throw ex;
+                }
+
+                log.warn("[CartScriptRegistry] NOSCRIPT for {}, loading it again", script);
+                load(connection, script);
+                return evalSha(connection, script, keys.size(), keysAndArgs);
+            }
+        });
+    }
+
+    private Long evalSha(RedisConnection connection, CartScript script, int numKeys, byte[][] keysAndArgs) {
+        return connection.scriptingCommands().evalSha(shaByScript.get(script), ReturnType.INTEGER, numKeys, keysAndArgs);
+    }
+
+    private void load(RedisConnection connection, CartScript script) {
+        String sha = connection.scriptingCommands().scriptLoad(script.getScriptText().getBytes(StandardCharsets.UTF_8));
+        if (null != sha && !sha.equals(shaByScript.get(script))) {
+            log.warn("[CartScriptRegistry] Redis returned SHA {} for {}, expected {}", sha, script, shaByScript.get(script));
+            shaByScript.put(script, sha);
+        }
+    }
+
+    private static boolean isNoScript(Throwable ex) {
+        for (Throwable cause = ex; null != cause; cause = cause.getCause()) {
+            if (null != cause.getMessage() && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String sha1Hex(String scriptText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest(scriptText.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-1 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.gamersblended.junes.repository;
+
+import com.gamersblended.junes.dto.CartItemDTO;
+import com.gamersblended.junes.dto.CartMutationDTO;
+import com.gamersblended.junes.model.Cart;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Abstraction over how live carts are laid out in Redis, so CartService does not depend on one layout
+ * Engine is picked with cart.storage.engine: json (RedisCartRepository) or hash (RedisHashCartRepository)
+ * Carts are keyed by userID when given, else by sessionID
+ */
+public interface CartStorage {
+
+    Cart createCart(UUID userID, UUID sessionID);
+
+    Optional<Cart> getCart(UUID userID, UUID sessionID);
+
+    boolean deleteCart(UUID userID, UUID sessionID);
+
+    /**
+     * Adds quantity to the item if already in cart, creates the cart if missing
+     *
+     * @return true if the cart was written
+     */
+    boolean addItem(UUID userID, UUID sessionID, CartItemDTO itemDTO);
+
+    /**
+     * @return false if there is no cart
+     */
+    boolean removeItem(UUID userID, UUID sessionID, String productID);
+
+    /**
+     * Quantity of 0 or less removes the item
+     *
+     * @return false if there is no cart
+     */
+    boolean updateItemQuantity(UUID userID, UUID sessionID, String productID, int quantity);
+
+    /**
+     * @return false if there is no cart
+     */
+    boolean clearCart(UUID userID, UUID sessionID);
+
+    /**
+     * Applies all mutations in order as one atomic write, creates the cart if missing
+     *
+     * @param mutationList validated mutations
+     * @param priceMap     productID -> price to store, for every product added by ADD
+     * @return true if the cart was written
+     */
+    boolean applyMutations(UUID userID, UUID sessionID, List<CartMutationDTO> mutationList, Map<String, BigDecimal> priceMap);
+
+    /**
+     * Moves the guest cart of sessionID into the cart of userID in one atomic write and deletes the guest cart
+     * Products in both carts end up with the quantities added up
+     *
+     * @return false if there was no guest cart to merge
+     */
+    boolean mergeGuestCart(UUID userID, UUID sessionID);
+}
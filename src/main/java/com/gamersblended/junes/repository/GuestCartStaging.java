@@ -0,0 +1,79 @@
+package com.gamersblended.junes.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A guest cart is tagged by session and a user cart by user, so under Redis Cluster they usually sit in different slots
+ * and no single script can merge them
+ * In cluster mode the guest keys are first copied next to the user cart with DUMP/RESTORE, the merge script then only touches one slot
+ * and deletes the copy, the guest keys themselves are only deleted by finish() once the merge succeeded
+ * A staged copy is therefore never the only copy of a guest cart, and staging keys include the session, so one session never overwrites
+ * the copy of another
+ */
+@Slf4j
+@Component
+public class GuestCartStaging {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean isCluster;
+
+    public GuestCartStaging(RedisTemplate<String, String> redisTemplate,
+                            @Value("${spring.data.redis.cluster.nodes:}") List<String> clusterNodes) {
+        this.redisTemplate = redisTemplate;
+        this.isCluster = !clusterNodes.isEmpty();
+    }
+
+    /**
+     * @param guestKeys   keys of the guest cart
+     * @param stagingKeys keys in the slot of the user cart to copy them to, in the same order
+     * @return keys the merge script should read the guest cart from
+     */
+    public List<String> stage(List<String> guestKeys, List<String> stagingKeys) {
+        if (!isCluster) {
+            return guestKeys;
+        }
+
+        for (int i = 0; i < guestKeys.size(); i++) {
+            byte[] dumpedValue = redisTemplate.dump(guestKeys.get(i));
+            if (null == dumpedValue) {
+                // A copy left by a crash mid-merge of this session, its guest cart has since expired
+                redisTemplate.delete(stagingKeys.get(i));
+                continue;
+            }
+
+            // Replacing only ever replaces an older copy of this same guest cart, which still exists
+            Long ttlMillis = redisTemplate.getExpire(guestKeys.get(i), TimeUnit.MILLISECONDS);
+            redisTemplate.restore(stagingKeys.get(i), dumpedValue, null != ttlMillis && ttlMillis > 0 ? ttlMillis : 0, TimeUnit.MILLISECONDS, true);
+        }
+
+        log.info("[GuestCartStaging] Staged guest cart {} at {}", guestKeys.get(0), stagingKeys.get(0));
+        return stagingKeys;
+    }
+
+    /**
+     * Deletes the guest cart once merged, else the copy, so a failed merge leaves the guest cart as it was
+     *
+     * @param guestKeys   keys of the guest cart, as given to stage()
+     * @param stagingKeys keys of the copy, as given to stage()
+     * @param isMerged    true if the merge script merged the copy
+     */
+    public void finish(List<String> guestKeys, List<String> stagingKeys, boolean isMerged) {
+        if (!isCluster) {
+            // The script merged straight from the guest keys and deleted them
+            return;
+        }
+
+        try {
+            redisTemplate.delete(isMerged ? guestKeys : stagingKeys);
+        } catch (Exception ex) {
+            // A guest cart left after its merge would be merged again by the next login of this session
+            log.error("[GuestCartStaging] Failed to clean up after merge of {}: {}", guestKeys.get(0), ex.getMessage());
+        }
+    }
+}
@@ -1,71 +1,58 @@
 package com.gamersblended.junes.repository;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gamersblended.junes.dto.CartItemDTO;
+import com.gamersblended.junes.dto.CartMutationDTO;
 import com.gamersblended.junes.exception.CartSerialisationException;
 import com.gamersblended.junes.exception.RedisDataException;
 import com.gamersblended.junes.mapper.CartProductMapper;
 import com.gamersblended.junes.model.Cart;
 import com.gamersblended.junes.model.CartItem;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Cart storage with each cart as one string value encoded by CartCodec, updated with optimistic locking on the cart version
+ */
 @Slf4j
 @Repository
-public class RedisCartRepository {
+@ConditionalOnProperty(name = "cart.storage.engine", havingValue = "json", matchIfMissing = true)
+public class RedisCartRepository implements CartStorage {
 
     private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final CartCodec cartCodec;
     private final CartProductMapper cartProductMapper;
+    private final CartScriptRegistry cartScriptRegistry;
+    private final GuestCartStaging guestCartStaging;
 
-    public RedisCartRepository(RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper, CartProductMapper cartProductMapper) {
+    public RedisCartRepository(RedisTemplate<String, String> redisTemplate, CartCodec cartCodec, CartProductMapper cartProductMapper, CartScriptRegistry cartScriptRegistry, GuestCartStaging guestCartStaging) {
         this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+        this.cartCodec = cartCodec;
         this.cartProductMapper = cartProductMapper;
+        this.cartScriptRegistry = cartScriptRegistry;
+        this.guestCartStaging = guestCartStaging;
     }
 
-    private static final String USER_CART_PREFIX = "user:cart:";
-    private static final String GUEST_CART_PREFIX = "cart:";
     private static final Duration USER_CART_TTL = Duration.ofDays(30);
     private static final Duration GUEST_CART_TTL = Duration.ofDays(7);
 
-    // Lua script for atomic cart update with optimistic locking
-    private static final String UPDATE_CART_SCRIPT =
-            """
-                    local key = KEYS[1]
-                    local newCartJson = ARGV[1]
-                    local expectedVersion = tonumber(ARGV[2])
-                    local ttl = tonumber(ARGV[3])
-                    
-                    local currentCartJson = redis.call('GET', key)
-                    
-                    if currentCartJson == false then
-                      -- Cart doesn't exist, create new
-                      redis.call('SET', key, newCartJson, 'EX', ttl)
-                      return 1
-                    end
-                    
-                    local currentCart = cjson.decode(currentCartJson)
-                    
-                    if currentCart.version ~= expectedVersion then
-                      -- Version mismatch, concurrent modification
-                      return 0
-                    end
-                    
-                    -- Update cart
-                    redis.call('SET', key, newCartJson, 'EX', ttl)
-                    return 1
-                    """;
+    // Cart version is mirrored here so the update script compares it without decoding the cart
+    private static final String VERSION_SUFFIX = CartKeys.VERSION_SUFFIX;
 
+    @Override
     public Cart createCart(UUID userID, UUID sessionID) {
         Cart cart = Cart.builder()
                 .cartID(UUID.randomUUID())
@@ -79,16 +66,21 @@ public class RedisCartRepository {
         return cart;
     }
 
+    @Override
     public Optional<Cart> getCart(UUID userID, UUID sessionID) {
-        String key = buildKey(userID, sessionID);
-        String cartJson = redisTemplate.opsForValue().get(key);
+        return readCart(buildKey(userID, sessionID));
+    }
 
-        if (null == cartJson) {
+    private Optional<Cart> readCart(String key) {
+        byte[] storedCart = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(key.getBytes(StandardCharsets.UTF_8)));
+
+        if (null == storedCart) {
             return Optional.empty();
         }
 
         try {
-            Cart cart = objectMapper.readValue(cartJson, Cart.class);
+            Cart cart = cartCodec.decode(storedCart);
             return Optional.of(cart);
         } catch (Exception ex) {
             log.error("Corrupt cart data at key = {}", key, ex);
@@ -96,9 +88,11 @@ public class RedisCartRepository {
         }
     }
 
+    @Override
     public boolean deleteCart(UUID userID, UUID sessionID) {
         String key = buildKey(userID, sessionID);
-        return redisTemplate.delete(key);
+        Long deletedCount = redisTemplate.delete(List.of(key, key + VERSION_SUFFIX));
+        return null != deletedCount && deletedCount > 0;
     }
 
     public void saveCart(Cart cart) {
@@ -106,11 +100,17 @@ public class RedisCartRepository {
         cart.setUpdatedOn(LocalDateTime.now());
 
         try {
-            String cartJson = objectMapper.writeValueAsString(cart);
+            byte[] encodedCart = cartCodec.encode(cart);
             Duration ttl = cart.getUserID() != null ? USER_CART_TTL : GUEST_CART_TTL;
 
-            redisTemplate.opsForValue().set(key, cartJson, ttl);
-        } catch (JsonProcessingException ex) {
+            cartScriptRegistry.execute(
+                    CartScript.JSON_SAVE_CART,
+                    List.of(key, key + VERSION_SUFFIX),
+                    encodedCart,
+                    toBytes(cart.getVersion()),
+                    toBytes(ttl.getSeconds())
+            );
+        } catch (IOException ex) {
             log.error("Failed to serialise cart for key: {}", key, ex);
             throw new CartSerialisationException("Failed to serialise cart");
         }
@@ -125,19 +125,15 @@ public class RedisCartRepository {
         cart.setVersion(oldVersion + 1);
 
         try {
-            String cartJson = objectMapper.writeValueAsString(cart);
+            byte[] encodedCart = cartCodec.encode(cart);
             Duration ttl = cart.getUserID() != null ? USER_CART_TTL : GUEST_CART_TTL;
 
-            DefaultRedisScript<Long> script = new DefaultRedisScript<>();
-            script.setScriptText(UPDATE_CART_SCRIPT);
-            script.setResultType(Long.class);
-
-            Long result = redisTemplate.execute(
-                    script,
-                    Collections.singletonList(key),
-                    cartJson,
-                    String.valueOf(oldVersion), // Check against version fetched
-                    String.valueOf(ttl.getSeconds())
+            Long result = cartScriptRegistry.execute(
+                    CartScript.JSON_UPDATE_CART,
+                    List.of(key, key + VERSION_SUFFIX),
+                    encodedCart,
+                    toBytes(oldVersion), // Check against version fetched
+                    toBytes(ttl.getSeconds())
             );
 
             // 1 = Success, 0 = Version Mismatch
@@ -146,13 +142,14 @@ public class RedisCartRepository {
                 cart.setVersion(oldVersion);
                 return false;
             }
-        } catch (JsonProcessingException ex) {
+        } catch (IOException ex) {
             log.error("Failed to serialise cart, key = {}", key, ex);
             throw new CartSerialisationException("Failed to serialise cart");
         }
         return true;
     }
 
+    @Override
     public boolean addItem(UUID userID, UUID sessionID, CartItemDTO itemDTO) {
         int maxRetries = 3;
         CartItem cartItem = cartProductMapper.toCartItemEntity(itemDTO);
@@ -173,6 +170,7 @@ public class RedisCartRepository {
         return false;
     }
 
+    @Override
     public boolean removeItem(UUID userID, UUID sessionID, String productID) {
         int maxRetries = 3;
 
@@ -206,6 +204,7 @@ public class RedisCartRepository {
                 );
     }
 
+    @Override
     public boolean updateItemQuantity(UUID userID, UUID sessionID, String productID, int quantity) {
         int maxRetries = 3;
 
@@ -239,6 +238,7 @@ public class RedisCartRepository {
         return false;
     }
 
+    @Override
     public boolean clearCart(UUID userID, UUID sessionID) {
         int maxRetries = 3;
 
@@ -262,10 +262,120 @@ public class RedisCartRepository {
         return false;
     }
 
-    private String buildKey(UUID userID, UUID sessionID) {
-        if (null != userID) {
-            return USER_CART_PREFIX + userID;
+    @Override
+    public boolean applyMutations(UUID userID, UUID sessionID, List<CartMutationDTO> mutationList, Map<String, BigDecimal> priceMap) {
+        int maxRetries = 3;
+
+        for (int i = 0; i < maxRetries; i++) {
+            Optional<Cart> cartOptional = getCart(userID, sessionID);
+            Cart cart = cartOptional.orElseGet(() -> createCart(userID, sessionID));
+
+            for (CartMutationDTO mutation : mutationList) {
+                applyMutation(cart, mutation, priceMap);
+            }
+
+            if (updateCartAtomic(cart)) {
+                return true;
+            }
+
+            log.info("Retry {}/{} for applying {} mutations to cart", i + 1, maxRetries, mutationList.size());
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean mergeGuestCart(UUID userID, UUID sessionID) {
+        String userKey = buildKey(userID, null);
+        String guestCartKey = buildKey(null, sessionID);
+        String stagingKey = CartKeys.guestStagingKey(userKey, sessionID);
+        List<String> guestCartKeys = List.of(guestCartKey, guestCartKey + VERSION_SUFFIX);
+        List<String> stagingKeys = List.of(stagingKey, stagingKey + VERSION_SUFFIX);
+
+        boolean isMerged = false;
+        try {
+            isMerged = mergeFrom(userID, sessionID, userKey, guestCartStaging.stage(guestCartKeys, stagingKeys));
+            return isMerged;
+        } finally {
+            guestCartStaging.finish(guestCartKeys, stagingKeys, isMerged);
         }
-        return GUEST_CART_PREFIX + sessionID;
+    }
+
+    // guestKeys are the guest cart and its version key, the script deletes them once merged
+    private boolean mergeFrom(UUID userID, UUID sessionID, String userKey, List<String> guestKeys) {
+        int maxRetries = 3;
+
+        for (int i = 0; i < maxRetries; i++) {
+            Optional<Cart> guestCartOptional = readCart(guestKeys.get(0));
+            if (guestCartOptional.isEmpty()) {
+                return false;
+            }
+
+            Optional<Cart> userCartOptional = getCart(userID, null);
+            Cart mergedCart = userCartOptional.orElseGet(() -> Cart.builder()
+                    .cartID(UUID.randomUUID())
+                    .userID(userID)
+                    .sessionID(sessionID)
+                    .createdOn(LocalDateTime.now())
+                    .version(0)
+                    .build());
+            int expectedUserVersion = userCartOptional.map(Cart::getVersion).orElse(-1);
+
+            Cart guestCart = guestCartOptional.get();
+            for (CartItem guestItem : new ArrayList<>(guestCart.getItemList())) {
+                updateOrAddItem(mergedCart, guestItem);
+            }
+            mergedCart.setVersion(Math.max(expectedUserVersion, 0) + 1);
+            mergedCart.setUpdatedOn(LocalDateTime.now());
+
+            try {
+                Long result = cartScriptRegistry.execute(
+                        CartScript.JSON_MERGE_CARTS,
+                        List.of(userKey, userKey + VERSION_SUFFIX, guestKeys.get(0), guestKeys.get(1)),
+                        cartCodec.encode(mergedCart),
+                        toBytes(expectedUserVersion),
+                        toBytes(guestCart.getVersion()),
+                        toBytes(USER_CART_TTL.getSeconds()),
+                        toBytes(mergedCart.getVersion())
+                );
+
+                if (null != result && result == 1) {
+                    return true;
+                }
+            } catch (IOException ex) {
+                log.error("Failed to serialise merged cart, key = {}", userKey, ex);
+                throw new CartSerialisationException("Failed to serialise cart");
+            }
+
+            log.info("Retry {}/{} for merging guest cart into user cart", i + 1, maxRetries);
+        }
+
+        return false;
+    }
+
+    private void applyMutation(Cart cart, CartMutationDTO mutation, Map<String, BigDecimal> priceMap) {
+        switch (mutation.getType()) {
+            case ADD -> updateOrAddItem(cart, cartProductMapper.toCartItemEntity(
+                    new CartItemDTO(mutation.getProductID(), priceMap.get(mutation.getProductID()), mutation.getQuantity(), LocalDateTime.now())));
+            case SET_QUANTITY -> cart.getItemList().stream()
+                    .filter(item -> item.getProductID().equals(mutation.getProductID()))
+                    .findFirst()
+                    .ifPresent(item -> {
+                        if (mutation.getQuantity() <= 0) {
+                            cart.getItemList().remove(item);
+                        } else {
+                            item.setQuantity(mutation.getQuantity());
+                        }
+                    });
+            case REMOVE -> cart.getItemList().removeIf(item -> item.getProductID().equals(mutation.getProductID()));
+        }
+    }
+
+    private static byte[] toBytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String buildKey(UUID userID, UUID sessionID) {
+        return CartKeys.jsonCartKey(userID, sessionID);
     }
 }
@@ -0,0 +1,238 @@
+package com.gamersblended.junes.repository;
+
+import com.gamersblended.junes.constant.CartMutationType;
+import com.gamersblended.junes.dto.CartItemDTO;
+import com.gamersblended.junes.dto.CartMutationDTO;
+import com.gamersblended.junes.exception.RedisDataException;
+import com.gamersblended.junes.model.Cart;
+import com.gamersblended.junes.model.CartItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Cart storage with one Redis hash per cart
+ * Item fields: productID -> "quantity|price|createdOn", cart fields start with '@' so they never clash with a productID
+ * Every item operation is one Lua call (see CartScript) that edits only its own field, so there is no read-modify-write loop to retry
+ * Timestamps are wall-clock millis of the LocalDateTime, read back without any zone conversion
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "cart.storage.engine", havingValue = "hash")
+public class RedisHashCartRepository implements CartStorage {
+
+    private static final Duration USER_CART_TTL = Duration.ofDays(30);
+    private static final Duration GUEST_CART_TTL = Duration.ofDays(7);
+
+    private static final String CART_ID_FIELD = "@cartID";
+    private static final String SESSION_ID_FIELD = "@sessionID";
+    private static final String CREATED_ON_FIELD = "@createdOn";
+    private static final String UPDATED_ON_FIELD = "@updatedOn";
+    private static final String VERSION_FIELD = "@version";
+    private static final String ITEM_SEPARATOR = "|";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final CartScriptRegistry cartScriptRegistry;
+    private final GuestCartStaging guestCartStaging;
+
+    public RedisHashCartRepository(RedisTemplate<String, String> redisTemplate, CartScriptRegistry cartScriptRegistry, GuestCartStaging guestCartStaging) {
+        this.redisTemplate = redisTemplate;
+        this.cartScriptRegistry = cartScriptRegistry;
+        this.guestCartStaging = guestCartStaging;
+    }
+
+    @Override
+    public Cart createCart(UUID userID, UUID sessionID) {
+        UUID cartID = UUID.randomUUID();
+        Long result = execute(CartScript.HASH_CREATE_CART, userID, sessionID, cartID.toString(), toArgument(sessionID));
+
+        // Lost the race to another request, theirs is the cart now
+        if (null == result || result == 0) {
+            return getCart(userID, sessionID).orElseThrow(() -> new RedisDataException("Cart vanished right after being created"));
+        }
+
+        LocalDateTime now = truncateToMillis(LocalDateTime.now());
+        return Cart.builder()
+                .cartID(cartID)
+                .userID(userID)
+                .sessionID(sessionID)
+                .createdOn(now)
+                .updatedOn(now)
+                .version(0)
+                .build();
+    }
+
+    @Override
+    public Optional<Cart> getCart(UUID userID, UUID sessionID) {
+        String key = buildKey(userID, sessionID);
+        HashOperations<String, String, String> hashOperations = redisTemplate.opsForHash();
+        Map<String, String> fieldMap = hashOperations.entries(key);
+
+        if (fieldMap.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(toCart(userID, sessionID, fieldMap));
+        } catch (Exception ex) {
+            log.error("Corrupt cart hash at key = {}", key, ex);
+            throw new RedisDataException("Failed to parse cart for user");
+        }
+    }
+
+    @Override
+    public boolean deleteCart(UUID userID, UUID sessionID) {
+        return redisTemplate.delete(buildKey(userID, sessionID));
+    }
+
+    @Override
+    public boolean addItem(UUID userID, UUID sessionID, CartItemDTO itemDTO) {
+        LocalDateTime itemCreatedOn = null != itemDTO.getCreatedOn() ? itemDTO.getCreatedOn() : LocalDateTime.now();
+
+        Long result = execute(CartScript.HASH_ADD_ITEM, userID, sessionID,
+                itemDTO.getProductID(),
+                String.valueOf(itemDTO.getQuantity()),
+                null != itemDTO.getPrice() ? itemDTO.getPrice().toPlainString() : "",
+                String.valueOf(toMillis(itemCreatedOn)),
+                UUID.randomUUID().toString(),
+                toArgument(sessionID));
+        return null != result && result == 1;
+    }
+
+    @Override
+    public boolean removeItem(UUID userID, UUID sessionID, String productID) {
+        Long result = execute(CartScript.HASH_REMOVE_ITEM, userID, sessionID, productID);
+        return null != result && result == 1;
+    }
+
+    @Override
+    public boolean updateItemQuantity(UUID userID, UUID sessionID, String productID, int quantity) {
+        Long result = execute(CartScript.HASH_UPDATE_QUANTITY, userID, sessionID, productID, String.valueOf(quantity));
+        return null != result && result == 1;
+    }
+
+    @Override
+    public boolean clearCart(UUID userID, UUID sessionID) {
+        Long result = execute(CartScript.HASH_CLEAR_CART, userID, sessionID);
+        return null != result && result == 1;
+    }
+
+    @Override
+    public boolean applyMutations(UUID userID, UUID sessionID, List<CartMutationDTO> mutationList, Map<String, BigDecimal> priceMap) {
+        List<String> argList = new ArrayList<>(2 + mutationList.size() * 4);
+        argList.add(UUID.randomUUID().toString());
+        argList.add(toArgument(sessionID));
+
+        for (CartMutationDTO mutation : mutationList) {
+            argList.add(mutation.getType().name());
+            argList.add(mutation.getProductID());
+            argList.add(String.valueOf(null != mutation.getQuantity() ? mutation.getQuantity() : 0));
+            BigDecimal price = CartMutationType.ADD == mutation.getType() ? priceMap.get(mutation.getProductID()) : null;
+            argList.add(null != price ? price.toPlainString() : "");
+        }
+
+        Long result = execute(CartScript.HASH_APPLY_MUTATIONS, userID, sessionID, argList.toArray(String[]::new));
+        return null != result && result == 1;
+    }
+
+    @Override
+    public boolean mergeGuestCart(UUID userID, UUID sessionID) {
+        String userKey = buildKey(userID, null);
+        List<String> guestCartKeys = List.of(buildKey(null, sessionID));
+        List<String> stagingKeys = List.of(CartKeys.guestStagingKey(userKey, sessionID));
+
+        boolean isMerged = false;
+        try {
+            List<String> guestKeys = guestCartStaging.stage(guestCartKeys, stagingKeys);
+
+            Long result = cartScriptRegistry.execute(
+                    CartScript.HASH_MERGE_CARTS,
+                    List.of(userKey, guestKeys.get(0)),
+                    String.valueOf(toMillis(LocalDateTime.now())),
+                    String.valueOf(USER_CART_TTL.getSeconds()),
+                    UUID.randomUUID().toString(),
+                    toArgument(sessionID));
+            isMerged = null != result && result == 1;
+            return isMerged;
+        } finally {
+            guestCartStaging.finish(guestCartKeys, stagingKeys, isMerged);
+        }
+    }
+
+    // Prepends the now and ttl arguments every script expects
+    private Long execute(CartScript script, UUID userID, UUID sessionID, String... scriptArgs) {
+        Duration ttl = null != userID ? USER_CART_TTL : GUEST_CART_TTL;
+
+        String[] args = new String[scriptArgs.length + 2];
+        args[0] = String.valueOf(toMillis(LocalDateTime.now()));
+        args[1] = String.valueOf(ttl.getSeconds());
+        System.arraycopy(scriptArgs, 0, args, 2, scriptArgs.length);
+
+        return cartScriptRegistry.execute(script, Collections.singletonList(buildKey(userID, sessionID)), args);
+    }
+
+    private Cart toCart(UUID userID, UUID sessionID, Map<String, String> fieldMap) {
+        String storedSessionID = fieldMap.get(SESSION_ID_FIELD);
+
+        Cart cart = Cart.builder()
+                .cartID(UUID.fromString(fieldMap.get(CART_ID_FIELD)))
+                .userID(userID)
+                .sessionID(null == storedSessionID || storedSessionID.isEmpty() ? sessionID : UUID.fromString(storedSessionID))
+                .createdOn(fromMillis(fieldMap.get(CREATED_ON_FIELD)))
+                .updatedOn(fromMillis(fieldMap.get(UPDATED_ON_FIELD)))
+                .version(Integer.valueOf(fieldMap.getOrDefault(VERSION_FIELD, "0")))
+                .build();
+
+        List<CartItem> itemList = new ArrayList<>();
+        for (Map.Entry<String, String> field : fieldMap.entrySet()) {
+            if (!field.getKey().startsWith("@")) {
+                itemList.add(toCartItem(field.getKey(), field.getValue()));
+            }
+        }
+
+        // Hash fields have no order, show items in the order they were added
+        itemList.sort(Comparator.comparing(CartItem::getCreatedOn).thenComparing(CartItem::getProductID));
+        itemList.forEach(cart::addItem);
+        return cart;
+    }
+
+    private static CartItem toCartItem(String productID, String value) {
+        String[] parts = value.split("\\" + ITEM_SEPARATOR, -1);
+
+        CartItem cartItem = new CartItem();
+        cartItem.setProductID(productID);
+        cartItem.setQuantity(Integer.valueOf(parts[0]));
+        cartItem.setPrice(parts[1].isEmpty() ? null : new BigDecimal(parts[1]));
+        cartItem.setCreatedOn(fromMillis(parts[2]));
+        return cartItem;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(String millis) {
+        return null == millis ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(millis)), ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime truncateToMillis(LocalDateTime dateTime) {
+        return fromMillis(String.valueOf(toMillis(dateTime)));
+    }
+
+    private static String toArgument(UUID id) {
+        return null == id ? "" : id.toString();
+    }
+
+    private String buildKey(UUID userID, UUID sessionID) {
+        return CartKeys.hashCartKey(userID, sessionID);
+    }
+}
@@ -0,0 +1,597 @@
+package com.gamersblended.junes.repository.catalogue;
+
+import com.gamersblended.junes.dto.ProductFacetCountsDTO;
+import com.gamersblended.junes.model.Product;
+import com.gamersblended.junes.repository.mongodb.ProductListingCursor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable faceted index over every product of a single platform
+ * Each product is addressed by its ordinal (position in _id order)
+ * Only stock is mutable, so inventory events can be applied without a rebuild
+ */
+public final class PlatformCatalogueSnapshot {
+
+    private static final String IN_STOCK = "in_stock";
+    private static final String OUT_OF_STOCK = "out_of_stock";
+    private static final String PREORDER = "preorder";
+
+    private final Product[] products;
+    private final Map<String, Integer> ordinalByProductID;
+    private final AtomicIntegerArray stock;
+    private final long[] releaseEpochDays;
+
+    // Facet value -> ordinals having that value
+    private final Map<String, BitSet> genreBitSets;
+    private final Map<String, BitSet> regionBitSets;
+    private final Map<String, BitSet> publisherBitSets;
+    private final Map<String, BitSet> editionBitSets;
+    private final Map<String, BitSet> languageBitSets;
+    private final Map<Character, BitSet> startingLetterBitSets;
+    private final ProductNameSearchIndex nameSearchIndex;
+
+    // Ordinals sorted by key, with the sorted keys alongside for range lookups
+    private final int[] ordinalsByPrice;
+    private final double[] sortedPrices;
+    private final int[] ordinalsByReleaseDate;
+    private final long[] sortedReleaseEpochDays;
+    private final int[] ordinalsByUnitsSold;
+    private final int[] ordinalsByName;
+    private final int[] ordinalsByCreatedOn;
+
+    /**
+     * @param productList products of one platform, in ascending _id order
+     */
+    public PlatformCatalogueSnapshot(List<Product> productList) {
+        int size = productList.size();
+        this.products = productList.toArray(new Product[0]);
+        this.ordinalByProductID = new HashMap<>(size * 2);
+        this.stock = new AtomicIntegerArray(size);
+        this.releaseEpochDays = new long[size];
+        this.genreBitSets = new HashMap<>();
+        this.regionBitSets = new HashMap<>();
+        this.publisherBitSets = new HashMap<>();
+        this.editionBitSets = new HashMap<>();
+        this.languageBitSets = new HashMap<>();
+        this.startingLetterBitSets = new HashMap<>();
+
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            Product product = products[ordinal];
+            ordinalByProductID.put(product.getId().toHexString(), ordinal);
+            stock.set(ordinal, product.getStock());
+            releaseEpochDays[ordinal] = product.getReleaseDate().toEpochDay();
+
+            for (String genre : product.getGenres()) {
+                addToFacet(genreBitSets, genre, ordinal);
+            }
+            for (String language : product.getLanguages()) {
+                addToFacet(languageBitSets, language, ordinal);
+            }
+            addToFacet(regionBitSets, product.getRegion(), ordinal);
+            addToFacet(publisherBitSets, product.getPublisher(), ordinal);
+            addToFacet(editionBitSets, product.getEdition(), ordinal);
+
+            if (!product.getName().isEmpty()) {
+                char firstLetter = Character.toLowerCase(product.getName().charAt(0));
+                startingLetterBitSets.computeIfAbsent(firstLetter, k -> new BitSet(size)).set(ordinal);
+            }
+        }
+
+        this.ordinalsByPrice = sortOrdinals(Comparator.comparing(Product::getPrice));
+        this.sortedPrices = keysOf(ordinalsByPrice, product -> product.getPrice().doubleValue());
+        this.ordinalsByReleaseDate = sortOrdinals(Comparator.comparing(Product::getReleaseDate));
+        this.sortedReleaseEpochDays = epochDaysOf(ordinalsByReleaseDate, product -> product.getReleaseDate().toEpochDay());
+        this.ordinalsByUnitsSold = sortOrdinals(Comparator.comparing(Product::getUnitsSold));
+        this.ordinalsByName = sortOrdinals(Comparator.comparing(Product::getName));
+        this.ordinalsByCreatedOn = sortOrdinals(Comparator.comparing(Product::getCreatedOn));
+        this.nameSearchIndex = new ProductNameSearchIndex(productList.stream().map(Product::getName).toList());
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    /**
+     * Applies the latest stock level of a product if it belongs to this platform
+     *
+     * @param productID    hex _id of product
+     * @param currentStock stock after the inventory change
+     * @return true if product is part of this snapshot
+     */
+    public boolean updateStock(String productID, int currentStock) {
+        Integer ordinal = ordinalByProductID.get(productID);
+        if (null == ordinal) {
+            return false;
+        }
+
+        stock.set(ordinal, currentStock);
+        return true;
+    }
+
+    /**
+     * Same filter semantics as the Mongo query built in CustomProductRepositoryImpl
+     *
+     * @param nameQuery        case-insensitive name substring, null if no name filter
+     * @param sortKey          one of the keys supported by ordinalsFor(), null for relevance (with name) or _id order
+     * @param descending       true to walk the sort order backwards
+     * @return page of products with exact total
+     */
+    public Page<Product> query(String nameQuery,
+                               List<String> availability,
+                               BigDecimal minPrice,
+                               BigDecimal maxPrice,
+                               List<String> genres,
+                               List<String> regions,
+                               List<String> publishers,
+                               List<String> editions,
+                               List<String> languages,
+                               List<Character> startingLetters,
+                               List<YearMonth> releaseDates,
+                               LocalDate currentDate,
+                               String sortKey,
+                               boolean descending,
+                               Pageable pageable) {
+        boolean hasNameQuery = null != nameQuery && !nameQuery.isEmpty();
+        BitSet matches = matching(nameQuery, availability, minPrice, maxPrice, genres, regions, publishers,
+                editions, languages, startingLetters, releaseDates, currentDate);
+
+        int total = matches.cardinality();
+
+        // Name searches without an explicit sort come back most relevant first
+        List<Product> content = null == sortKey && hasNameQuery
+                ? collectPage(nameSearchIndex.rank(nameQuery, matches), pageable)
+                : collectPage(matches, ordinalsFor(sortKey), descending, pageable);
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Keyset variant of query(): same filters, but resumes right after the cursor and never counts
+     *
+     * @param cursor   sort and position to resume from
+     * @param pageSize max number of products to return
+     * @return up to pageSize products following the cursor, in cursor order
+     */
+    public List<Product> queryAfter(String nameQuery,
+                                    List<String> availability,
+                                    BigDecimal minPrice,
+                                    BigDecimal maxPrice,
+                                    List<String> genres,
+                                    List<String> regions,
+                                    List<String> publishers,
+                                    List<String> editions,
+                                    List<String> languages,
+                                    List<Character> startingLetters,
+                                    List<YearMonth> releaseDates,
+                                    LocalDate currentDate,
+                                    ProductListingCursor cursor,
+                                    int pageSize) {
+        BitSet matches = matching(nameQuery, availability, minPrice, maxPrice, genres, regions, publishers,
+                editions, languages, startingLetters, releaseDates, currentDate);
+
+        int[] order = "_id".equals(cursor.getSortField()) ? null : ordinalsFor(cursor.getSortField());
+        boolean descending = cursor.isDescending();
+        int size = products.length;
+
+        // Walk order is monotonic relative to the cursor, so the resume point is a binary search away
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cursor.compareTo(products[ordinalAt(order, descending, mid)]) > 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+
+        List<Product> content = new ArrayList<>(pageSize);
+        for (int i = low; i < size && content.size() < pageSize; i++) {
+            int ordinal = ordinalAt(order, descending, i);
+            if (matches.get(ordinal)) {
+                content.add(products[ordinal]);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Facet counts with the same semantics as the $facet aggregation in ProductCountStrategy:
+     * every facet is counted under all filters except its own
+     *
+     * @return total and counts per facet value, highest count first
+     */
+    public ProductFacetCountsDTO facetCounts(String nameQuery,
+                                             List<String> availability,
+                                             BigDecimal minPrice,
+                                             BigDecimal maxPrice,
+                                             List<String> genres,
+                                             List<String> regions,
+                                             List<String> publishers,
+                                             List<String> editions,
+                                             List<String> languages,
+                                             List<Character> startingLetters,
+                                             List<YearMonth> releaseDates,
+                                             LocalDate currentDate) {
+        BitSet baseMatches = matching(nameQuery, availability, minPrice, maxPrice, null, null, null,
+                null, null, startingLetters, releaseDates, currentDate);
+
+        List<Map<String, BitSet>> facetList = List.of(genreBitSets, regionBitSets, publisherBitSets, editionBitSets, languageBitSets);
+        List<List<String>> selectedList = Arrays.asList(genres, regions, publishers, editions, languages);
+
+        List<BitSet> selectedMatchesList = new ArrayList<>();
+        for (int i = 0; i < facetList.size(); i++) {
+            selectedMatchesList.add(anyOf(facetList.get(i), selectedList.get(i)));
+        }
+
+        List<Map<String, Long>> countsList = new ArrayList<>();
+        for (int i = 0; i < facetList.size(); i++) {
+            BitSet candidates = (BitSet) baseMatches.clone();
+            for (int j = 0; j < selectedMatchesList.size(); j++) {
+                if (j != i && null != selectedMatchesList.get(j)) {
+                    candidates.and(selectedMatchesList.get(j));
+                }
+            }
+            countsList.add(countByValue(facetList.get(i), candidates));
+        }
+
+        BitSet totalMatches = (BitSet) baseMatches.clone();
+        for (BitSet selectedMatches : selectedMatchesList) {
+            if (null != selectedMatches) {
+                totalMatches.and(selectedMatches);
+            }
+        }
+
+        ProductFacetCountsDTO facetCountsDTO = new ProductFacetCountsDTO();
+        facetCountsDTO.setTotal(totalMatches.cardinality());
+        facetCountsDTO.setGenres(countsList.get(0));
+        facetCountsDTO.setRegions(countsList.get(1));
+        facetCountsDTO.setPublishers(countsList.get(2));
+        facetCountsDTO.setEditions(countsList.get(3));
+        facetCountsDTO.setLanguages(countsList.get(4));
+        return facetCountsDTO;
+    }
+
+    private static Map<String, Long> countByValue(Map<String, BitSet> facet, BitSet candidates) {
+        List<Map.Entry<String, Long>> countList = new ArrayList<>();
+        for (Map.Entry<String, BitSet> entry : facet.entrySet()) {
+            BitSet valueMatches = (BitSet) entry.getValue().clone();
+            valueMatches.and(candidates);
+            long count = valueMatches.cardinality();
+            if (count > 0) {
+                countList.add(Map.entry(entry.getKey(), count));
+            }
+        }
+        countList.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        Map<String, Long> countByValue = new LinkedHashMap<>();
+        countList.forEach(entry -> countByValue.put(entry.getKey(), entry.getValue()));
+        return countByValue;
+    }
+
+    private int ordinalAt(int[] order, boolean descending, int walkIndex) {
+        int position = descending ? products.length - 1 - walkIndex : walkIndex;
+        return null == order ? position : order[position];
+    }
+
+    private BitSet matching(String nameQuery,
+                            List<String> availability,
+                            BigDecimal minPrice,
+                            BigDecimal maxPrice,
+                            List<String> genres,
+                            List<String> regions,
+                            List<String> publishers,
+                            List<String> editions,
+                            List<String> languages,
+                            List<Character> startingLetters,
+                            List<YearMonth> releaseDates,
+                            LocalDate currentDate) {
+        int size = products.length;
+        BitSet matches = new BitSet(size);
+        matches.set(0, size);
+
+        if (null != nameQuery && !nameQuery.isEmpty()) {
+            matches.and(nameSearchIndex.matching(nameQuery));
+        }
+
+        if (null != minPrice || null != maxPrice) {
+            matches.and(priceRange(minPrice, maxPrice));
+        }
+
+        retainAnyOf(matches, genreBitSets, genres);
+        retainAnyOf(matches, regionBitSets, regions);
+        retainAnyOf(matches, publisherBitSets, publishers);
+        retainAnyOf(matches, editionBitSets, editions);
+        retainAnyOf(matches, languageBitSets, languages);
+
+        if (null != startingLetters && !startingLetters.isEmpty()) {
+            BitSet letterMatches = new BitSet(size);
+            for (Character letter : startingLetters) {
+                BitSet bitSet = startingLetterBitSets.get(letter);
+                if (null != bitSet) {
+                    letterMatches.or(bitSet);
+                }
+            }
+            matches.and(letterMatches);
+        }
+
+        if (null != releaseDates && !releaseDates.isEmpty()) {
+            BitSet dateMatches = new BitSet(size);
+            for (YearMonth releaseDate : releaseDates) {
+                setRange(dateMatches, ordinalsByReleaseDate,
+                        lowerBound(sortedReleaseEpochDays, releaseDate.atDay(1).toEpochDay()),
+                        upperBound(sortedReleaseEpochDays, releaseDate.atEndOfMonth().toEpochDay()));
+            }
+            matches.and(dateMatches);
+        }
+
+        // Stock is mutable, so availability is checked per ordinal on what the bitsets left over
+        AvailabilityFilter availabilityFilter = AvailabilityFilter.of(availability);
+        if (AvailabilityFilter.NONE != availabilityFilter) {
+            long currentEpochDay = currentDate.toEpochDay();
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                if (!availabilityFilter.matches(stock.get(ordinal), releaseEpochDays[ordinal], currentEpochDay)) {
+                    matches.clear(ordinal);
+                }
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * @param sortKey Mongo field name
+     * @return true if results can be ordered by this field without Mongo
+     */
+    public static boolean isSupportedSortKey(String sortKey) {
+        return switch (sortKey) {
+            case "price", "release_date", "units_sold", "name", "created_on" -> true;
+            default -> false;
+        };
+    }
+
+    private int[] ordinalsFor(String sortKey) {
+        if (null == sortKey) {
+            return null;
+        }
+
+        return switch (sortKey) {
+            case "price" -> ordinalsByPrice;
+            case "release_date" -> ordinalsByReleaseDate;
+            case "units_sold" -> ordinalsByUnitsSold;
+            case "name" -> ordinalsByName;
+            case "created_on" -> ordinalsByCreatedOn;
+            default -> throw new IllegalStateException("Unsupported sort key: " + sortKey);
+        };
+    }
+
+    private List<Product> collectPage(BitSet matches, int[] order, boolean descending, Pageable pageable) {
+        long offset = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        List<Product> content = new ArrayList<>(pageSize);
+        int size = products.length;
+        long skipped = 0;
+
+        for (int i = 0; i < size && content.size() < pageSize; i++) {
+            int position = descending ? size - 1 - i : i;
+            int ordinal = null == order ? position : order[position];
+
+            if (!matches.get(ordinal)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            content.add(products[ordinal]);
+        }
+
+        return content;
+    }
+
+    private List<Product> collectPage(int[] rankedOrdinals, Pageable pageable) {
+        long offset = pageable.getOffset();
+        if (offset >= rankedOrdinals.length) {
+            return List.of();
+        }
+
+        int to = (int) Math.min(rankedOrdinals.length, offset + pageable.getPageSize());
+        List<Product> content = new ArrayList<>(to - (int) offset);
+        for (int i = (int) offset; i < to; i++) {
+            content.add(products[rankedOrdinals[i]]);
+        }
+        return content;
+    }
+
+    private BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        int from = null == minPrice ? 0 : lowerBound(sortedPrices, minPrice.doubleValue());
+        int to = null == maxPrice ? sortedPrices.length : upperBound(sortedPrices, maxPrice.doubleValue());
+
+        BitSet bitSet = new BitSet(products.length);
+        setRange(bitSet, ordinalsByPrice, from, to);
+        return bitSet;
+    }
+
+    private void retainAnyOf(BitSet matches, Map<String, BitSet> facet, List<String> values) {
+        BitSet anyOf = anyOf(facet, values);
+        if (null != anyOf) {
+            matches.and(anyOf);
+        }
+    }
+
+    // Null when there is nothing to filter on
+    private BitSet anyOf(Map<String, BitSet> facet, List<String> values) {
+        if (null == values || values.isEmpty()) {
+            return null;
+        }
+
+        BitSet anyOf = new BitSet(products.length);
+        for (String value : values) {
+            BitSet bitSet = facet.get(value);
+            if (null != bitSet) {
+                anyOf.or(bitSet);
+            }
+        }
+        return anyOf;
+    }
+
+    private static void addToFacet(Map<String, BitSet> facet, String value, int ordinal) {
+        facet.computeIfAbsent(value, k -> new BitSet()).set(ordinal);
+    }
+
+    private static void setRange(BitSet bitSet, int[] sortedOrdinals, int from, int to) {
+        for (int i = from; i < to; i++) {
+            bitSet.set(sortedOrdinals[i]);
+        }
+    }
+
+    private int[] sortOrdinals(Comparator<Product> comparator) {
+        // Ties keep _id order, sort is stable
+        return Arrays.stream(ordinalRange())
+                .boxed()
+                .sorted((a, b) -> comparator.compare(products[a], products[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private int[] ordinalRange() {
+        int[] ordinals = new int[products.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = i;
+        }
+        return ordinals;
+    }
+
+    private double[] keysOf(int[] sortedOrdinals, ToDoubleFunction<Product> keyExtractor) {
+        double[] keys = new double[sortedOrdinals.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keyExtractor.applyAsDouble(products[sortedOrdinals[i]]);
+        }
+        return keys;
+    }
+
+    private long[] epochDaysOf(int[] sortedOrdinals, ToLongFunction<Product> keyExtractor) {
+        long[] keys = new long[sortedOrdinals.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keyExtractor.applyAsLong(products[sortedOrdinals[i]]);
+        }
+        return keys;
+    }
+
+    // First index with key >= target
+    private static int lowerBound(double[] keys, double target) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First index with key > target
+    private static int upperBound(double[] keys, double target) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(long[] keys, long target) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(long[] keys, long target) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Mirrors the availability combinations handled by CustomProductRepositoryImpl
+     * Any other combination applies no filter, same as the Mongo query
+     */
+    private enum AvailabilityFilter {
+        NONE,
+        IN_STOCK_ONLY,
+        OUT_OF_STOCK_ONLY,
+        PREORDER_ONLY,
+        RELEASED,
+        IN_STOCK_OR_PREORDER,
+        OUT_OF_STOCK_OR_PREORDER;
+
+        static AvailabilityFilter of(List<String> availability) {
+            if (null == availability || availability.isEmpty()) {
+                return NONE;
+            }
+
+            Set<String> availabilitySet = new HashSet<>(availability);
+            if (availabilitySet.equals(Set.of(IN_STOCK))) {
+                return IN_STOCK_ONLY;
+            } else if (availabilitySet.equals(Set.of(OUT_OF_STOCK))) {
+                return OUT_OF_STOCK_ONLY;
+            } else if (availabilitySet.equals(Set.of(PREORDER))) {
+                return PREORDER_ONLY;
+            } else if (availabilitySet.equals(Set.of(IN_STOCK, OUT_OF_STOCK))) {
+                return RELEASED;
+            } else if (availabilitySet.equals(Set.of(IN_STOCK, PREORDER))) {
+                return IN_STOCK_OR_PREORDER;
+            } else if (availabilitySet.equals(Set.of(OUT_OF_STOCK, PREORDER))) {
+                return OUT_OF_STOCK_OR_PREORDER;
+            }
+            return NONE;
+        }
+
+        boolean matches(int stock, long releaseEpochDay, long currentEpochDay) {
+            boolean isReleased = releaseEpochDay <= currentEpochDay;
+            return switch (this) {
+                case NONE -> true;
+                case IN_STOCK_ONLY -> stock > 0 && isReleased;
+                case OUT_OF_STOCK_ONLY -> stock <= 0 && isReleased;
+                case PREORDER_ONLY -> !isReleased;
+                case RELEASED -> isReleased;
+                case IN_STOCK_OR_PREORDER -> stock > 0 || !isReleased;
+                case OUT_OF_STOCK_OR_PREORDER -> stock <= 0 || !isReleased;
+            };
+        }
+    }
+}
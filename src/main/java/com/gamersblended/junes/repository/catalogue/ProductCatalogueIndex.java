@@ -0,0 +1,385 @@
+package com.gamersblended.junes.repository.catalogue;
+
+import com.gamersblended.junes.constant.PlatformEnums;
+import com.gamersblended.junes.dto.ProductFacetCountsDTO;
+import com.gamersblended.junes.dto.ProductSuggestionDTO;
+import com.gamersblended.junes.model.Product;
+import com.gamersblended.junes.repository.mongodb.ProductListingCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * In-process faceted index of the products collection, one snapshot per platform
+ * Rebuilt from Mongo on a fixed delay and kept current between rebuilds from inventory events
+ * Each node holds its own copy, so the resync is deliberately not under ShedLock
+ */
+@Slf4j
+@Component
+public class ProductCatalogueIndex {
+
+    private final MongoTemplate mongoTemplate;
+
+    // Replaced wholesale on each resync, empty until first resync completes
+    private volatile Map<String, PlatformCatalogueSnapshot> snapshotByPlatform = Map.of();
+
+    // Tries only depend on names, slugs and units sold: a platform whose fingerprint is unchanged keeps its trie
+    private volatile Map<String, ProductSuggestionTrie> suggestionTrieByPlatform = Map.of();
+    private Map<String, Long> suggestionFingerprintByPlatform = Map.of();
+
+    // Every product _id across platforms, null until first resync completes
+    private volatile ProductIdSet productIdSet = null;
+
+    // Prices of every product, replaced on resync only when a price or product changed
+    private volatile ProductPriceSnapshot priceSnapshot = ProductPriceSnapshot.EMPTY;
+
+    // Stock updates received while a resync is reading from Mongo, re-applied to the new snapshots
+    private final AtomicBoolean isResyncInProgress = new AtomicBoolean(false);
+    private final Map<String, Integer> stockUpdatesDuringResync = new ConcurrentHashMap<>();
+
+    public ProductCatalogueIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public boolean isWarm(String platform) {
+        return snapshotByPlatform.containsKey(platform);
+    }
+
+    @Scheduled(fixedDelayString = "${catalogue.index.resync-interval-ms:300000}")
+    public void resync() {
+        if (!isResyncInProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            stockUpdatesDuringResync.clear();
+            long startTime = System.currentTimeMillis();
+
+            Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+            Map<String, List<Product>> productsByPlatform = mongoTemplate.find(query, Product.class).stream()
+                    .collect(Collectors.groupingBy(Product::getPlatform, LinkedHashMap::new, Collectors.toList()));
+
+            Map<String, PlatformCatalogueSnapshot> newSnapshotByPlatform = new HashMap<>();
+            productsByPlatform.forEach((platform, productList) ->
+                    newSnapshotByPlatform.put(platform, new PlatformCatalogueSnapshot(productList)));
+
+            // Platforms without products are warm too, they just match nothing
+            for (PlatformEnums platform : PlatformEnums.values()) {
+                newSnapshotByPlatform.putIfAbsent(platform.getPlatformValue(), new PlatformCatalogueSnapshot(List.of()));
+            }
+
+            snapshotByPlatform = Map.copyOf(newSnapshotByPlatform);
+            rebuildChangedSuggestionTries(productsByPlatform);
+            List<Product> allProductList = productsByPlatform.values().stream()
+                    .flatMap(List::stream)
+                    .toList();
+            ProductIdSet newProductIdSet = ProductIdSet.of(allProductList.stream().map(Product::getId).toList());
+            productIdSet = newProductIdSet;
+            priceSnapshot = ProductPriceSnapshot.of(priceSnapshot, newProductIdSet, allProductList);
+
+            // Publish first, then replay, so no update can land only on the old snapshots
+            stockUpdatesDuringResync.forEach(this::applyStockUpdate);
+
+            log.info("[ProductCatalogueIndex] Resynced {} platform(s) in {}ms", newSnapshotByPlatform.size(),
+                    System.currentTimeMillis() - startTime);
+        } catch (Exception ex) {
+            // Keep serving the previous snapshots, or Mongo if there are none
+            log.error("[ProductCatalogueIndex] Resync failed: {}", ex.getMessage(), ex);
+        } finally {
+            isResyncInProgress.set(false);
+        }
+    }
+
+    /**
+     * Applies stock level carried by an InventoryChangedEvent
+     *
+     * @param productID    hex _id of product
+     * @param currentStock stock after the change
+     */
+    public void updateStock(String productID, Integer currentStock) {
+        if (null == productID || null == currentStock) {
+            return;
+        }
+
+        if (isResyncInProgress.get()) {
+            stockUpdatesDuringResync.put(productID, currentStock);
+        }
+
+        if (!applyStockUpdate(productID, currentStock)) {
+            log.info("[ProductCatalogueIndex] Product {} not indexed yet, stock will be picked up on next resync", productID);
+        }
+    }
+
+    /**
+     * @param productID _id of product
+     * @return whether the product was in the catalogue at the last resync, empty while the index is cold
+     */
+    public Optional<Boolean> containsProduct(ObjectId productID) {
+        ProductIdSet currentProductIdSet = productIdSet;
+        if (null == currentProductIdSet) {
+            return Optional.empty();
+        }
+        return Optional.of(currentProductIdSet.contains(productID));
+    }
+
+    /**
+     * @return prices as of the last resync, version 0 and no prices while the index is cold
+     */
+    public ProductPriceSnapshot getPriceSnapshot() {
+        return priceSnapshot;
+    }
+
+    /**
+     * Answers a listing query from the index
+     * Inputs are expected to have been validated by the caller
+     *
+     * @return page with exact total, or empty if the platform is cold or the query shape is not supported
+     */
+    public Optional<Page<Product>> findProductsWithFilters(
+            String platform,
+            String name,
+            List<String> availability,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            List<String> genres,
+            List<String> regions,
+            List<String> publishers,
+            List<String> editions,
+            List<String> languages,
+            List<String> startingLetters,
+            List<YearMonth> releaseDates,
+            String currentDate,
+            Pageable pageable) {
+
+        PlatformCatalogueSnapshot snapshot = snapshotByPlatform.get(platform);
+        if (null == snapshot) {
+            log.info("[ProductCatalogueIndex] COLD for platform = {}", platform);
+            return Optional.empty();
+        }
+
+        // Single sort key only, anything else goes to Mongo
+        String sortKey = null;
+        boolean descending = false;
+        List<Sort.Order> orderList = pageable.getSort().toList();
+        if (orderList.size() > 1) {
+            return Optional.empty();
+        }
+        if (orderList.size() == 1) {
+            sortKey = toFieldName(orderList.get(0).getProperty());
+            descending = orderList.get(0).isDescending();
+            if (!PlatformCatalogueSnapshot.isSupportedSortKey(sortKey)) {
+                return Optional.empty();
+            }
+        }
+
+        Optional<List<Character>> letterList = toLetterList(startingLetters);
+        Optional<LocalDate> referenceDate = toReferenceDate(currentDate);
+        if (letterList.isEmpty() || referenceDate.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(snapshot.query(name, availability, minPrice, maxPrice, genres,
+                regions, publishers, editions, languages, letterList.get(), releaseDates,
+                referenceDate.get(), sortKey, descending, pageable));
+    }
+
+    /**
+     * Answers a cursor listing query from the index
+     * Inputs are expected to have been validated by the caller
+     *
+     * @return up to pageSize products after the cursor, or empty if the platform is cold or the query shape is not supported
+     */
+    public Optional<List<Product>> findProductsAfterCursor(
+            String platform,
+            String name,
+            List<String> availability,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            List<String> genres,
+            List<String> regions,
+            List<String> publishers,
+            List<String> editions,
+            List<String> languages,
+            List<String> startingLetters,
+            List<YearMonth> releaseDates,
+            String currentDate,
+            ProductListingCursor cursor,
+            int pageSize) {
+
+        PlatformCatalogueSnapshot snapshot = snapshotByPlatform.get(platform);
+        if (null == snapshot) {
+            log.info("[ProductCatalogueIndex] COLD for platform = {}", platform);
+            return Optional.empty();
+        }
+
+        Optional<List<Character>> letterList = toLetterList(startingLetters);
+        Optional<LocalDate> referenceDate = toReferenceDate(currentDate);
+        if (letterList.isEmpty() || referenceDate.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(snapshot.queryAfter(name, availability, minPrice, maxPrice, genres,
+                regions, publishers, editions, languages, letterList.get(), releaseDates,
+                referenceDate.get(), cursor, pageSize));
+    }
+
+    /**
+     * Answers a facet counts query from the index
+     * Inputs are expected to have been validated by the caller
+     *
+     * @return facet counts, or empty if the platform is cold or the query shape is not supported
+     */
+    public Optional<ProductFacetCountsDTO> findFacetCounts(
+            String platform,
+            String name,
+            List<String> availability,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            List<String> genres,
+            List<String> regions,
+            List<String> publishers,
+            List<String> editions,
+            List<String> languages,
+            List<String> startingLetters,
+            List<YearMonth> releaseDates,
+            String currentDate) {
+
+        PlatformCatalogueSnapshot snapshot = snapshotByPlatform.get(platform);
+        if (null == snapshot) {
+            log.info("[ProductCatalogueIndex] COLD for platform = {}", platform);
+            return Optional.empty();
+        }
+
+        Optional<List<Character>> letterList = toLetterList(startingLetters);
+        Optional<LocalDate> referenceDate = toReferenceDate(currentDate);
+        if (letterList.isEmpty() || referenceDate.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(snapshot.facetCounts(name, availability, minPrice, maxPrice, genres,
+                regions, publishers, editions, languages, letterList.get(), releaseDates,
+                referenceDate.get()));
+    }
+
+    /**
+     * Search-as-you-type suggestions, answered without touching Mongo
+     *
+     * @param query    raw keystroke input
+     * @param platform limit suggestions to this platform, null for all platforms
+     * @param limit    max number of suggestions
+     * @return suggestions with the most units sold first, empty while the index is cold
+     */
+    public List<ProductSuggestionDTO> suggest(String query, String platform, int limit) {
+        Map<String, ProductSuggestionTrie> currentTrieByPlatform = suggestionTrieByPlatform;
+
+        if (null != platform) {
+            ProductSuggestionTrie trie = currentTrieByPlatform.get(platform);
+            return null == trie ? List.of() : trie.suggest(query, limit);
+        }
+
+        // Each trie already returns its best first, so merging the per-platform heads is enough
+        return currentTrieByPlatform.values().stream()
+                .flatMap(trie -> trie.suggest(query, limit).stream())
+                .sorted(Comparator.comparing(ProductSuggestionDTO::getUnitsSold).reversed()
+                        .thenComparing(ProductSuggestionDTO::getName))
+                .limit(limit)
+                .toList();
+    }
+
+    private void rebuildChangedSuggestionTries(Map<String, List<Product>> productsByPlatform) {
+        Map<String, ProductSuggestionTrie> newTrieByPlatform = new HashMap<>();
+        Map<String, Long> newFingerprintByPlatform = new HashMap<>();
+        int rebuiltCount = 0;
+
+        for (Map.Entry<String, List<Product>> entry : productsByPlatform.entrySet()) {
+            String platform = entry.getKey();
+            long fingerprint = suggestionFingerprint(entry.getValue());
+            ProductSuggestionTrie existingTrie = suggestionTrieByPlatform.get(platform);
+
+            if (null != existingTrie && Long.valueOf(fingerprint).equals(suggestionFingerprintByPlatform.get(platform))) {
+                newTrieByPlatform.put(platform, existingTrie);
+            } else {
+                newTrieByPlatform.put(platform, new ProductSuggestionTrie(entry.getValue()));
+                rebuiltCount++;
+            }
+            newFingerprintByPlatform.put(platform, fingerprint);
+        }
+
+        suggestionTrieByPlatform = Map.copyOf(newTrieByPlatform);
+        suggestionFingerprintByPlatform = newFingerprintByPlatform;
+        log.info("[ProductCatalogueIndex] Rebuilt {} of {} suggestion trie(s)", rebuiltCount, newTrieByPlatform.size());
+    }
+
+    private static long suggestionFingerprint(List<Product> productList) {
+        long fingerprint = 17;
+        for (Product product : productList) {
+            fingerprint = 31 * fingerprint + Objects.hash(product.getId(), product.getName(), product.getSlug(),
+                    product.getUnitsSold(), product.getProductImageUrl());
+        }
+        return fingerprint;
+    }
+
+    private boolean applyStockUpdate(String productID, int currentStock) {
+        for (PlatformCatalogueSnapshot snapshot : snapshotByPlatform.values()) {
+            if (snapshot.updateStock(productID, currentStock)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Empty if a letter cannot be matched the way Mongo would, an empty list means no letter filter
+    private static Optional<List<Character>> toLetterList(List<String> startingLetters) {
+        List<Character> letterList = new ArrayList<>();
+        if (null == startingLetters) {
+            return Optional.of(letterList);
+        }
+
+        for (String startingLetter : startingLetters) {
+            String trimmed = startingLetter.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            // Non-alphanumerics carry meaning inside a regex character class
+            if (!Character.isLetterOrDigit(trimmed.charAt(0))) {
+                return Optional.empty();
+            }
+            letterList.add(Character.toLowerCase(trimmed.charAt(0)));
+        }
+        return Optional.of(letterList);
+    }
+
+    private static Optional<LocalDate> toReferenceDate(String currentDate) {
+        try {
+            return Optional.of(LocalDate.parse(currentDate));
+        } catch (DateTimeParseException ex) {
+            // Mongo compares release_date as a string, leave non-ISO dates to it
+            return Optional.empty();
+        }
+    }
+
+    // Sort properties may be given as Product field names or as Mongo field names
+    private static String toFieldName(String property) {
+        return switch (property) {
+            case "releaseDate" -> "release_date";
+            case "unitsSold" -> "units_sold";
+            case "createdOn" -> "created_on";
+            default -> property;
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.gamersblended.junes.repository.catalogue;
+
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of product _ids as two sorted primitive arrays, 12 bytes per product and no objects per entry
+ * An ObjectId is split into its first 8 bytes and last 4 bytes, both compared unsigned, which is the order of ObjectId itself
+ */
+public final class ProductIdSet {
+
+    public static final ProductIdSet EMPTY = new ProductIdSet(new long[0], new int[0]);
+
+    private final long[] highBits;
+    private final int[] lowBits;
+
+    private ProductIdSet(long[] highBits, int[] lowBits) {
+        this.highBits = highBits;
+        this.lowBits = lowBits;
+    }
+
+    public static ProductIdSet of(Collection<ObjectId> productIDs) {
+        ObjectId[] sortedIDs = productIDs.toArray(ObjectId[]::new);
+        Arrays.sort(sortedIDs);
+
+        long[] highBits = new long[sortedIDs.length];
+        int[] lowBits = new int[sortedIDs.length];
+        int size = 0;
+
+        for (ObjectId productID : sortedIDs) {
+            ByteBuffer buffer = ByteBuffer.wrap(productID.toByteArray());
+            long high = buffer.getLong();
+            int low = buffer.getInt();
+
+            // Skip duplicates, sorted input puts them next to each other
+            if (size > 0 && highBits[size - 1] == high && lowBits[size - 1] == low) {
+                continue;
+            }
+            highBits[size] = high;
+            lowBits[size] = low;
+            size++;
+        }
+
+        return new ProductIdSet(Arrays.copyOf(highBits, size), Arrays.copyOf(lowBits, size));
+    }
+
+    public boolean contains(ObjectId productID) {
+        return indexOf(productID) >= 0;
+    }
+
+    /**
+     * @return position of productID in _id order, -1 if not in the set
+     */
+    public int indexOf(ObjectId productID) {
+        ByteBuffer buffer = ByteBuffer.wrap(productID.toByteArray());
+        long high = buffer.getLong();
+        int low = buffer.getInt();
+
+        int lowIndex = 0;
+        int highIndex = highBits.length - 1;
+        while (lowIndex <= highIndex) {
+            int mid = (lowIndex + highIndex) >>> 1;
+            int comparison = Long.compareUnsigned(highBits[mid], high);
+            if (0 == comparison) {
+                comparison = Integer.compareUnsigned(lowBits[mid], low);
+            }
+
+            if (comparison < 0) {
+                lowIndex = mid + 1;
+            } else if (comparison > 0) {
+                highIndex = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    boolean hasSameIDs(ProductIdSet other) {
+        return Arrays.equals(highBits, other.highBits) && Arrays.equals(lowBits, other.lowBits);
+    }
+
+    public int size() {
+        return highBits.length;
+    }
+}
@@ -0,0 +1,171 @@
+package com.gamersblended.junes.repository.catalogue;
+
+import java.util.*;
+
+/**
+ * Immutable n-gram inverted index over product names, addressed by snapshot ordinal
+ * Every 1, 2 and 3 character gram of the lower-cased name is posted, so:
+ * - queries up to 3 characters are a single postings lookup
+ * - longer queries intersect the postings of their trigrams and verify the survivors
+ * Matching is a literal, case-insensitive substring match
+ */
+public final class ProductNameSearchIndex {
+
+    private static final int MAX_GRAM_LENGTH = 3;
+    private static final int[] NO_POSTINGS = new int[0];
+
+    // Relevance tiers, lower is better
+    private static final int EXACT_MATCH = 0;
+    private static final int PREFIX_MATCH = 1;
+    private static final int WORD_PREFIX_MATCH = 2;
+    private static final int SUBSTRING_MATCH = 3;
+
+    private final String[] normalisedNames;
+    private final Map<String, int[]> postingsByGram;
+
+    /**
+     * @param nameList product names, list index = ordinal
+     */
+    public ProductNameSearchIndex(List<String> nameList) {
+        this.normalisedNames = new String[nameList.size()];
+        Map<String, List<Integer>> postingListByGram = new HashMap<>();
+
+        for (int ordinal = 0; ordinal < normalisedNames.length; ordinal++) {
+            String normalisedName = normalise(nameList.get(ordinal));
+            normalisedNames[ordinal] = normalisedName;
+
+            // Set per name, so a repeated gram posts the ordinal once
+            Set<String> gramSet = new HashSet<>();
+            for (int start = 0; start < normalisedName.length(); start++) {
+                for (int length = 1; length <= MAX_GRAM_LENGTH && start + length <= normalisedName.length(); length++) {
+                    gramSet.add(normalisedName.substring(start, start + length));
+                }
+            }
+
+            // Ordinals are visited in ascending order, so every postings list ends up sorted
+            for (String gram : gramSet) {
+                postingListByGram.computeIfAbsent(gram, k -> new ArrayList<>()).add(ordinal);
+            }
+        }
+
+        this.postingsByGram = new HashMap<>(postingListByGram.size() * 2);
+        postingListByGram.forEach((gram, postingList) ->
+                postingsByGram.put(gram, postingList.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    public static String normalise(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param query raw search input, matched as a literal substring ignoring case
+     * @return ordinals whose name contains query, all ordinals if query is blank
+     */
+    public BitSet matching(String query) {
+        String normalisedQuery = normalise(query);
+        BitSet matches = new BitSet(normalisedNames.length);
+
+        if (normalisedQuery.isEmpty()) {
+            matches.set(0, normalisedNames.length);
+            return matches;
+        }
+
+        if (normalisedQuery.length() <= MAX_GRAM_LENGTH) {
+            for (int ordinal : postingsByGram.getOrDefault(normalisedQuery, NO_POSTINGS)) {
+                matches.set(ordinal);
+            }
+            return matches;
+        }
+
+        // Intersect from the rarest trigram up, then drop false positives
+        List<int[]> trigramPostingsList = new ArrayList<>();
+        for (int start = 0; start + MAX_GRAM_LENGTH <= normalisedQuery.length(); start++) {
+            int[] postings = postingsByGram.get(normalisedQuery.substring(start, start + MAX_GRAM_LENGTH));
+            if (null == postings) {
+                return matches;
+            }
+            trigramPostingsList.add(postings);
+        }
+        trigramPostingsList.sort(Comparator.comparingInt(postings -> postings.length));
+
+        int[] candidates = trigramPostingsList.get(0);
+        for (int i = 1; i < trigramPostingsList.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, trigramPostingsList.get(i));
+        }
+
+        for (int ordinal : candidates) {
+            if (normalisedNames[ordinal].contains(normalisedQuery)) {
+                matches.set(ordinal);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Orders matching ordinals by relevance:
+     * exact name, then name prefix, then word prefix, then any substring
+     * Ties go to the shorter name, then to the lower ordinal
+     *
+     * @param query      raw search input
+     * @param candidates ordinals to rank, expected to match query
+     * @return ranked ordinals
+     */
+    public int[] rank(String query, BitSet candidates) {
+        String normalisedQuery = normalise(query);
+        int[] ordinals = candidates.stream().toArray();
+        int[] tiers = new int[normalisedNames.length];
+
+        for (int ordinal : ordinals) {
+            tiers[ordinal] = relevanceTier(normalisedNames[ordinal], normalisedQuery);
+        }
+
+        return Arrays.stream(ordinals)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingInt(ordinal -> tiers[ordinal])
+                        .thenComparingInt(ordinal -> normalisedNames[ordinal].length())
+                        .thenComparingInt(Integer::intValue))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static int relevanceTier(String normalisedName, String normalisedQuery) {
+        if (normalisedQuery.isEmpty()) {
+            return SUBSTRING_MATCH;
+        }
+        if (normalisedName.equals(normalisedQuery)) {
+            return EXACT_MATCH;
+        }
+        if (normalisedName.startsWith(normalisedQuery)) {
+            return PREFIX_MATCH;
+        }
+
+        int index = normalisedName.indexOf(normalisedQuery);
+        while (index > 0) {
+            if (!Character.isLetterOrDigit(normalisedName.charAt(index - 1))) {
+                return WORD_PREFIX_MATCH;
+            }
+            index = normalisedName.indexOf(normalisedQuery, index + 1);
+        }
+        return SUBSTRING_MATCH;
+    }
+
+    private static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
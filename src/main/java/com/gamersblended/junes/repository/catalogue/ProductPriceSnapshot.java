@@ -0,0 +1,69 @@
+package com.gamersblended.junes.repository.catalogue;
+
+import com.gamersblended.junes.model.Product;
+import com.gamersblended.junes.util.MoneyUtils;
+import org.bson.types.ObjectId;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Immutable price list of the catalogue in cents, aligned with a ProductIdSet so a lookup is one binary search
+ * The version only moves when a resync finds a different set of products or prices, so it can be compared across requests
+ */
+public final class ProductPriceSnapshot {
+
+    public static final ProductPriceSnapshot EMPTY = new ProductPriceSnapshot(0, ProductIdSet.EMPTY, new long[0]);
+
+    // Product without a price, looked up like a product not in the snapshot
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final long version;
+    private final ProductIdSet productIdSet;
+    private final long[] priceCents;
+
+    private ProductPriceSnapshot(long version, ProductIdSet productIdSet, long[] priceCents) {
+        this.version = version;
+        this.productIdSet = productIdSet;
+        this.priceCents = priceCents;
+    }
+
+    /**
+     * @param previous     snapshot being replaced, returned as is if nothing changed
+     * @param productIdSet _ids of productList
+     * @param productList  products read by the resync
+     */
+    public static ProductPriceSnapshot of(ProductPriceSnapshot previous, ProductIdSet productIdSet, List<Product> productList) {
+        long[] priceCents = new long[productIdSet.size()];
+        Arrays.fill(priceCents, NO_PRICE);
+        for (Product product : productList) {
+            int index = productIdSet.indexOf(product.getId());
+            if (index >= 0 && null != product.getPrice()) {
+                priceCents[index] = MoneyUtils.toCents(product.getPrice());
+            }
+        }
+
+        if (previous.productIdSet.hasSameIDs(productIdSet) && Arrays.equals(previous.priceCents, priceCents)) {
+            return previous;
+        }
+        return new ProductPriceSnapshot(previous.version + 1, productIdSet, priceCents);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param productID hex _id of product
+     * @return price in cents, empty if the product was not in the catalogue at the last resync or had no price
+     */
+    public OptionalLong getPriceCents(String productID) {
+        if (!ObjectId.isValid(productID)) {
+            return OptionalLong.empty();
+        }
+
+        int index = productIdSet.indexOf(new ObjectId(productID));
+        return index < 0 || NO_PRICE == priceCents[index] ? OptionalLong.empty() : OptionalLong.of(priceCents[index]);
+    }
+}
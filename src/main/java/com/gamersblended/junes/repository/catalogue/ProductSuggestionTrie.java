@@ -0,0 +1,217 @@
+package com.gamersblended.junes.repository.catalogue;
+
+import com.gamersblended.junes.dto.ProductSuggestionDTO;
+import com.gamersblended.junes.model.Product;
+
+import java.util.*;
+
+/**
+ * Immutable prefix trie over product names and slugs, flattened into primitive arrays
+ * Every node stores its best products (highest units_sold) up front,
+ * so a lookup costs one walk down the prefix and no ranking at query time
+ * Terms indexed per product: full name, name from each word onwards, slug
+ */
+public final class ProductSuggestionTrie {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_TERM_LENGTH = 32;
+
+    // Node n has children at [childStart[n], childStart[n] + childCount[n]), labels sorted ascending
+    private final char[] labels;
+    private final int[] childStart;
+    private final short[] childCount;
+
+    // Node n's suggestions are topProducts[topStart[n]] .. topProducts[topStart[n + 1] - 1], best first
+    private final int[] topStart;
+    private final int[] topProducts;
+
+    // Suggestion payload, indexed by rank (0 = most units sold)
+    private final String[] productIDs;
+    private final String[] names;
+    private final String[] slugs;
+    private final String[] platforms;
+    private final String[] productImageUrls;
+    private final int[] unitsSold;
+
+    public ProductSuggestionTrie(List<Product> productList) {
+        List<Product> rankedList = new ArrayList<>(productList);
+        rankedList.sort(Comparator.comparing(Product::getUnitsSold).reversed()
+                .thenComparing(Product::getName));
+
+        int size = rankedList.size();
+        this.productIDs = new String[size];
+        this.names = new String[size];
+        this.slugs = new String[size];
+        this.platforms = new String[size];
+        this.productImageUrls = new String[size];
+        this.unitsSold = new int[size];
+
+        BuilderNode root = new BuilderNode();
+        for (int rank = 0; rank < size; rank++) {
+            Product product = rankedList.get(rank);
+            productIDs[rank] = product.getId().toHexString();
+            names[rank] = product.getName();
+            slugs[rank] = product.getSlug();
+            platforms[rank] = product.getPlatform();
+            productImageUrls[rank] = product.getProductImageUrl();
+            unitsSold[rank] = product.getUnitsSold();
+
+            for (String term : termsOf(product)) {
+                root.insert(term, rank);
+            }
+        }
+        root.collectTop();
+
+        // Breadth-first flattening keeps each node's children contiguous
+        List<BuilderNode> nodeList = new ArrayList<>();
+        nodeList.add(root);
+        for (int i = 0; i < nodeList.size(); i++) {
+            nodeList.addAll(nodeList.get(i).children.values());
+        }
+
+        int nodeCount = nodeList.size();
+        this.labels = new char[nodeCount];
+        this.childStart = new int[nodeCount];
+        this.childCount = new short[nodeCount];
+        this.topStart = new int[nodeCount + 1];
+
+        int nextChild = 1;
+        int topTotal = 0;
+        for (int n = 0; n < nodeCount; n++) {
+            BuilderNode node = nodeList.get(n);
+            labels[n] = node.label;
+            childStart[n] = nextChild;
+            childCount[n] = (short) node.children.size();
+            nextChild += node.children.size();
+            topStart[n] = topTotal;
+            topTotal += node.top.length;
+        }
+        topStart[nodeCount] = topTotal;
+
+        this.topProducts = new int[topTotal];
+        for (int n = 0; n < nodeCount; n++) {
+            int[] top = nodeList.get(n).top;
+            System.arraycopy(top, 0, topProducts, topStart[n], top.length);
+        }
+    }
+
+    /**
+     * @param prefix raw keystroke input
+     * @param limit  max number of suggestions, capped at MAX_SUGGESTIONS
+     * @return suggestions with the most units sold first
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        String normalisedPrefix = ProductNameSearchIndex.normalise(prefix);
+        if (normalisedPrefix.isEmpty()) {
+            return List.of();
+        }
+        if (normalisedPrefix.length() > MAX_TERM_LENGTH) {
+            normalisedPrefix = normalisedPrefix.substring(0, MAX_TERM_LENGTH);
+        }
+
+        int node = 0;
+        for (int i = 0; i < normalisedPrefix.length() && node >= 0; i++) {
+            node = findChild(node, normalisedPrefix.charAt(i));
+        }
+        if (node < 0) {
+            return List.of();
+        }
+
+        int to = Math.min(topStart[node + 1], topStart[node] + Math.min(limit, MAX_SUGGESTIONS));
+        List<ProductSuggestionDTO> suggestionList = new ArrayList<>(to - topStart[node]);
+        for (int i = topStart[node]; i < to; i++) {
+            suggestionList.add(toDTO(topProducts[i]));
+        }
+        return suggestionList;
+    }
+
+    private int findChild(int node, char label) {
+        int low = childStart[node];
+        int high = low + childCount[node] - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels[mid] < label) {
+                low = mid + 1;
+            } else if (labels[mid] > label) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private ProductSuggestionDTO toDTO(int rank) {
+        ProductSuggestionDTO suggestionDTO = new ProductSuggestionDTO();
+        suggestionDTO.setProductID(productIDs[rank]);
+        suggestionDTO.setName(names[rank]);
+        suggestionDTO.setSlug(slugs[rank]);
+        suggestionDTO.setPlatform(platforms[rank]);
+        suggestionDTO.setProductImageUrl(productImageUrls[rank]);
+        suggestionDTO.setUnitsSold(unitsSold[rank]);
+        return suggestionDTO;
+    }
+
+    private static Set<String> termsOf(Product product) {
+        Set<String> termSet = new HashSet<>();
+        String normalisedName = ProductNameSearchIndex.normalise(product.getName());
+
+        for (int start = 0; start < normalisedName.length(); start++) {
+            boolean isWordStart = start == 0
+                    || (!Character.isLetterOrDigit(normalisedName.charAt(start - 1)) && Character.isLetterOrDigit(normalisedName.charAt(start)));
+            if (isWordStart) {
+                termSet.add(truncate(normalisedName.substring(start)));
+            }
+        }
+
+        termSet.add(truncate(ProductNameSearchIndex.normalise(product.getSlug())));
+        termSet.remove("");
+        return termSet;
+    }
+
+    private static String truncate(String term) {
+        return term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term;
+    }
+
+    /**
+     * Mutable node used only while building
+     */
+    private static final class BuilderNode {
+        private char label;
+        private final TreeMap<Character, BuilderNode> children = new TreeMap<>();
+        private final List<Integer> terminalRankList = new ArrayList<>();
+        private int[] top;
+
+        private void insert(String term, int rank) {
+            BuilderNode node = this;
+            for (int i = 0; i < term.length(); i++) {
+                char nextLabel = term.charAt(i);
+                BuilderNode child = node.children.get(nextLabel);
+                if (null == child) {
+                    child = new BuilderNode();
+                    child.label = nextLabel;
+                    node.children.put(nextLabel, child);
+                }
+                node = child;
+            }
+            node.terminalRankList.add(rank);
+        }
+
+        // Lower rank = more units sold, so best products are the smallest distinct ranks in the subtree
+        private void collectTop() {
+            TreeSet<Integer> bestRankSet = new TreeSet<>(terminalRankList);
+            for (BuilderNode child : children.values()) {
+                child.collectTop();
+                for (int rank : child.top) {
+                    bestRankSet.add(rank);
+                }
+            }
+
+            top = bestRankSet.stream()
+                    .limit(MAX_SUGGESTIONS)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+}
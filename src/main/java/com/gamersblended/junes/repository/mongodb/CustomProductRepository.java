@@ -1,8 +1,10 @@
 package com.gamersblended.junes.repository.mongodb;
 
+import com.gamersblended.junes.dto.ProductFacetCountsDTO;
 import com.gamersblended.junes.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
 import java.time.YearMonth;
@@ -24,4 +26,48 @@ public interface CustomProductRepository {
             List<YearMonth> releaseDates,
             String currentDate,
             Pageable pageable);
+
+    /**
+     * Keyset pagination over the same filters as findProductsWithFilters, no total count
+     *
+     * @param cursor   sort and position to resume from, ProductListingCursor.firstPage() for the first page
+     * @param pageSize max number of products per slice
+     * @return slice of products after the cursor, hasNext() tells if another slice follows
+     */
+    Slice<Product> findProductsWithFiltersAfterCursor(
+            String platform,
+            String name,
+            List<String> availability,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            List<String> genres,
+            List<String> regions,
+            List<String> publishers,
+            List<String> editions,
+            List<String> languages,
+            List<String> startingLetters,
+            List<YearMonth> releaseDates,
+            String currentDate,
+            ProductListingCursor cursor,
+            int pageSize);
+
+    /**
+     * Facet sidebar counts for the same filters as findProductsWithFilters
+     *
+     * @return total and counts per genre, region, publisher, edition and language
+     */
+    ProductFacetCountsDTO findFacetCounts(
+            String platform,
+            String name,
+            List<String> availability,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            List<String> genres,
+            List<String> regions,
+            List<String> publishers,
+            List<String> editions,
+            List<String> languages,
+            List<String> startingLetters,
+            List<YearMonth> releaseDates,
+            String currentDate);
 }
@@ -1,10 +1,15 @@
 package com.gamersblended.junes.repository.mongodb;
 
 import com.gamersblended.junes.constant.PlatformEnums;
+import com.gamersblended.junes.dto.ProductFacetCountsDTO;
 import com.gamersblended.junes.model.Product;
+import com.gamersblended.junes.repository.catalogue.ProductCatalogueIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -13,9 +18,12 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.YearMonth;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -32,9 +40,13 @@ public class CustomProductRepositoryImpl implements CustomProductRepository {
     private static final Pattern SAFE_STRING_PATTERN = Pattern.compile("^[a-zA-Z0-9\\s\\-_.,!?'\"()&]+$");
 
     private MongoTemplate mongoTemplate;
+    private final ProductCatalogueIndex productCatalogueIndex;
+    private final ProductCountStrategy productCountStrategy;
 
-    public CustomProductRepositoryImpl(MongoTemplate mongoTemplate) {
+    public CustomProductRepositoryImpl(MongoTemplate mongoTemplate, ProductCatalogueIndex productCatalogueIndex, ProductCountStrategy productCountStrategy) {
         this.mongoTemplate = Objects.requireNonNull(mongoTemplate, "MongoTemplate cannot be null");
+        this.productCatalogueIndex = Objects.requireNonNull(productCatalogueIndex, "ProductCatalogueIndex cannot be null");
+        this.productCountStrategy = Objects.requireNonNull(productCountStrategy, "ProductCountStrategy cannot be null");
     }
 
     @Override
@@ -60,14 +72,162 @@ public class CustomProductRepositoryImpl implements CustomProductRepository {
                 languages, startingLetters,
                 pageable);
 
+        // Serve from in-memory index when warm, Mongo only when cold or query shape unsupported
+        Optional<Page<Product>> indexedPage = productCatalogueIndex.findProductsWithFilters(
+                platform, name, availability, minPrice, maxPrice, genres,
+                regions, publishers, editions, languages, startingLetters,
+                releaseDates, currentDate, pageable);
+        if (indexedPage.isPresent()) {
+            return indexedPage.get();
+        }
+
+        Query query = buildFilterQuery(platform, name, availability, minPrice, maxPrice, genres,
+                regions, publishers, editions, languages, startingLetters, releaseDates, currentDate);
+
+        // Add pagination
+        query.with(pageable);
+
+        // Execute query
+        List<Product> products = mongoTemplate.find(query, Product.class);
+
+        // Only counted when the page alone cannot tell the total, and then through the count cache
+        String signature = ProductCountStrategy.signatureOf(platform, name, availability, minPrice, maxPrice, genres,
+                regions, publishers, editions, languages, startingLetters, releaseDates, currentDate);
+
+        return PageableExecutionUtils.getPage(products, pageable,
+                () -> productCountStrategy.count(signature, Query.of(query).limit(-1).skip(-1)));
+    }
+
+    @Override
+    public ProductFacetCountsDTO findFacetCounts(
+            String platform,
+            String name,
+            List<String> availability,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            List<String> genres,
+            List<String> regions,
+            List<String> publishers,
+            List<String> editions,
+            List<String> languages,
+            List<String> startingLetters,
+            List<YearMonth> releaseDates,
+            String currentDate) {
+
+        validateInputs(platform, name,
+                minPrice, maxPrice, genres,
+                regions, publishers, editions,
+                languages, startingLetters,
+                Pageable.unpaged());
+
+        Optional<ProductFacetCountsDTO> indexedFacetCounts = productCatalogueIndex.findFacetCounts(
+                platform, name, availability, minPrice, maxPrice, genres,
+                regions, publishers, editions, languages, startingLetters,
+                releaseDates, currentDate);
+        if (indexedFacetCounts.isPresent()) {
+            return indexedFacetCounts.get();
+        }
+
+        // Facet filters are left out of the base query, each facet applies all the others but its own
+        Query baseQuery = buildFilterQuery(platform, name, availability, minPrice, maxPrice, null,
+                null, null, null, null, startingLetters, releaseDates, currentDate);
+
+        Map<String, Criteria> criteriaByFacet = new HashMap<>();
+        putIfFiltered(criteriaByFacet, "genres", genres);
+        putIfFiltered(criteriaByFacet, "region", regions);
+        putIfFiltered(criteriaByFacet, "publisher", publishers);
+        putIfFiltered(criteriaByFacet, "edition", editions);
+        putIfFiltered(criteriaByFacet, "languages", languages);
+
+        String signature = ProductCountStrategy.signatureOf(platform, name, availability, minPrice, maxPrice, genres,
+                regions, publishers, editions, languages, startingLetters, releaseDates, currentDate);
+
+        return productCountStrategy.countFacets(signature, baseQuery, criteriaByFacet);
+    }
+
+    private static void putIfFiltered(Map<String, Criteria> criteriaByFacet, String field, List<String> values) {
+        if (null != values && !values.isEmpty()) {
+            criteriaByFacet.put(field, Criteria.where(field).in(values));
+        }
+    }
+
+    @Override
+    public Slice<Product> findProductsWithFiltersAfterCursor(
+            String platform,
+            String name,
+            List<String> availability,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            List<String> genres,
+            List<String> regions,
+            List<String> publishers,
+            List<String> editions,
+            List<String> languages,
+            List<String> startingLetters,
+            List<YearMonth> releaseDates,
+            String currentDate,
+            ProductListingCursor cursor,
+            int pageSize) {
+
+        PageRequest pageRequest = PageRequest.of(0, pageSize, cursor.toSort());
+        validateInputs(platform, name,
+                minPrice, maxPrice, genres,
+                regions, publishers, editions,
+                languages, startingLetters,
+                pageRequest);
+
+        // One extra product tells whether there is a next page, without counting
+        List<Product> products = productCatalogueIndex.findProductsAfterCursor(
+                        platform, name, availability, minPrice, maxPrice, genres,
+                        regions, publishers, editions, languages, startingLetters,
+                        releaseDates, currentDate, cursor, pageSize + 1)
+                .orElseGet(() -> {
+                    Query query = buildFilterQuery(platform, name, availability, minPrice, maxPrice, genres,
+                            regions, publishers, editions, languages, startingLetters, releaseDates, currentDate);
+
+                    // No skip: the cursor criteria seeks straight to the next product on the (field, _id) sort
+                    Criteria cursorCriteria = cursor.toCriteria();
+                    if (null != cursorCriteria) {
+                        query.addCriteria(cursorCriteria);
+                    }
+                    query.with(cursor.toSort()).limit(pageSize + 1);
+
+                    return mongoTemplate.find(query, Product.class);
+                });
+
+        boolean hasNext = products.size() > pageSize;
+        List<Product> content = hasNext ? products.subList(0, pageSize) : products;
+
+        return new SliceImpl<>(content, pageRequest, hasNext);
+    }
+
+    /**
+     * Builds criteria shared by offset and cursor listings, without sort or pagination
+     *
+     * @return query on platform and every filter provided
+     */
+    private Query buildFilterQuery(String platform,
+                                   String name,
+                                   List<String> availability,
+                                   BigDecimal minPrice,
+                                   BigDecimal maxPrice,
+                                   List<String> genres,
+                                   List<String> regions,
+                                   List<String> publishers,
+                                   List<String> editions,
+                                   List<String> languages,
+                                   List<String> startingLetters,
+                                   List<YearMonth> releaseDates,
+                                   String currentDate) {
         Query query = new Query();
 
         // Platform (required)
         query.addCriteria(Criteria.where("platform").is(platform));
 
-        // Name like '%name%'
+        // Name like '%name%', matched literally to agree with ProductNameSearchIndex
+        // Unanchored, so this scans the collection: only reached while the catalogue index is cold
         if (null != name && !name.isEmpty()) {
-            query.addCriteria(Criteria.where("name").regex(".*" + name.trim() + ".*", "i"));
+            query.addCriteria(Criteria.where("name").regex(".*" + Pattern.quote(name.trim()) + ".*", "i"));
         }
 
         // Price range
@@ -176,14 +336,7 @@ public class CustomProductRepositoryImpl implements CustomProductRepository {
             }
         }
 
-        // Add pagination
-        query.with(pageable);
-
-        // Execute query
-        List<Product> products = mongoTemplate.find(query, Product.class);
-        long count = mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Product.class);
-
-        return PageableExecutionUtils.getPage(products, pageable, () -> count);
+        return query;
     }
 
     /**
@@ -215,7 +368,7 @@ public class CustomProductRepositoryImpl implements CustomProductRepository {
         }
 
         // Page size limits
-        if (pageable.getPageSize() > PAGE_SIZE_LIMIT) {
+        if (pageable.isPaged() && pageable.getPageSize() > PAGE_SIZE_LIMIT) {
             throw new IllegalArgumentException("Page size cannot exceed " + PAGE_SIZE_LIMIT + ", given page size: " + pageable.getPageSize());
         }
 
@@ -0,0 +1,215 @@
+package com.gamersblended.junes.repository.mongodb;
+
+import com.gamersblended.junes.dto.ProductFacetCountsDTO;
+import com.gamersblended.junes.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Decides how listing totals and facet counts are computed when the catalogue index is cold
+ * - No criteria at all: estimatedDocumentCount from collection metadata
+ * - Anything else: exact count, cached per normalised filter signature for a short TTL
+ * - Facet counts: one $facet aggregation for every facet, cached the same way
+ */
+@Slf4j
+@Component
+public class ProductCountStrategy {
+
+    // Facet field -> whether the field is an array that has to be unwound first
+    public static final Map<String, Boolean> FACET_FIELDS = Map.of(
+            "genres", true,
+            "region", false,
+            "publisher", false,
+            "edition", false,
+            "languages", true
+    );
+    private static final String TOTAL = "total";
+
+    private final MongoTemplate mongoTemplate;
+    private final long cacheTtlMs;
+    private final int cacheMaxEntries;
+
+    private final Map<String, CachedValue<Long>> countBySignature = new ConcurrentHashMap<>();
+    private final Map<String, CachedValue<ProductFacetCountsDTO>> facetCountsBySignature = new ConcurrentHashMap<>();
+
+    public ProductCountStrategy(MongoTemplate mongoTemplate,
+                                @Value("${catalogue.count.cache-ttl-ms:30000}") long cacheTtlMs,
+                                @Value("${catalogue.count.cache-max-entries:10000}") int cacheMaxEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheTtlMs = cacheTtlMs;
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    /**
+     * Normalised so the same filters in any order, case or duplication share one cache entry
+     * Reference date only matters to availability, so it is left out when there is no availability filter
+     *
+     * @return signature of the listing filters
+     */
+    public static String signatureOf(String platform, String name, List<String> availability,
+                                     BigDecimal minPrice, BigDecimal maxPrice, List<String> genres,
+                                     List<String> regions, List<String> publishers, List<String> editions,
+                                     List<String> languages, List<String> startingLetters,
+                                     List<YearMonth> releaseDates, String currentDate) {
+        boolean hasAvailability = null != availability && !availability.isEmpty();
+
+        return String.join("|",
+                lengthPrefixed(platform),
+                null == name ? "" : lengthPrefixed(name.trim().toLowerCase(Locale.ROOT)),
+                normalise(availability),
+                null == minPrice ? "" : minPrice.stripTrailingZeros().toPlainString(),
+                null == maxPrice ? "" : maxPrice.stripTrailingZeros().toPlainString(),
+                normalise(genres),
+                normalise(regions),
+                normalise(publishers),
+                normalise(editions),
+                normalise(languages),
+                null == startingLetters ? "" : normalise(startingLetters.stream().map(letter -> letter.trim().toLowerCase(Locale.ROOT)).toList()),
+                null == releaseDates ? "" : normalise(releaseDates.stream().map(YearMonth::toString).toList()),
+                hasAvailability ? currentDate : "");
+    }
+
+    /**
+     * @param signature   from signatureOf()
+     * @param filterQuery filter criteria without skip, limit or sort
+     * @return total number of products matching filterQuery
+     */
+    public long count(String signature, Query filterQuery) {
+        if (filterQuery.getQueryObject().isEmpty()) {
+            return mongoTemplate.estimatedCount(Product.class);
+        }
+
+        return getOrCompute(countBySignature, signature, () -> mongoTemplate.count(filterQuery, Product.class));
+    }
+
+    /**
+     * @param signature         from signatureOf()
+     * @param baseQuery         every filter except the facet fields
+     * @param criteriaByFacet   facet field -> its own filter, only for facets that are filtered on
+     * @return counts per facet value, each facet under all filters except its own
+     */
+    public ProductFacetCountsDTO countFacets(String signature, Query baseQuery, Map<String, Criteria> criteriaByFacet) {
+        return getOrCompute(facetCountsBySignature, signature, () -> aggregateFacets(baseQuery, criteriaByFacet));
+    }
+
+    private ProductFacetCountsDTO aggregateFacets(Query baseQuery, Map<String, Criteria> criteriaByFacet) {
+        // Every facet in one round trip: shared $match first, then one sub-pipeline per facet
+        AggregationOperation baseMatch = context -> new Document("$match", context.getMappedObject(baseQuery.getQueryObject(), Product.class));
+
+        FacetOperation facetOperation = Aggregation.facet(
+                Aggregation.match(allExcept(criteriaByFacet, null)),
+                Aggregation.count().as(TOTAL)).as(TOTAL);
+
+        for (Map.Entry<String, Boolean> facetField : FACET_FIELDS.entrySet()) {
+            String field = facetField.getKey();
+            List<AggregationOperation> pipeline = new ArrayList<>();
+            pipeline.add(Aggregation.match(allExcept(criteriaByFacet, field)));
+            if (facetField.getValue()) {
+                pipeline.add(Aggregation.unwind(field));
+            }
+            pipeline.add(Aggregation.sortByCount(field));
+
+            facetOperation = facetOperation.and(pipeline.toArray(new AggregationOperation[0])).as(field);
+        }
+
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(baseMatch, facetOperation), Product.class, Document.class)
+                .getUniqueMappedResult();
+
+        ProductFacetCountsDTO facetCountsDTO = new ProductFacetCountsDTO();
+        facetCountsDTO.setTotal(null == result ? 0 : totalOf(result.getList(TOTAL, Document.class)));
+        facetCountsDTO.setGenres(countsOf(result, "genres"));
+        facetCountsDTO.setRegions(countsOf(result, "region"));
+        facetCountsDTO.setPublishers(countsOf(result, "publisher"));
+        facetCountsDTO.setEditions(countsOf(result, "edition"));
+        facetCountsDTO.setLanguages(countsOf(result, "languages"));
+        return facetCountsDTO;
+    }
+
+    private static Criteria allExcept(Map<String, Criteria> criteriaByFacet, String excludedField) {
+        List<Criteria> criteriaList = criteriaByFacet.entrySet().stream()
+                .filter(entry -> !entry.getKey().equals(excludedField))
+                .map(Map.Entry::getValue)
+                .toList();
+
+        return criteriaList.isEmpty() ? new Criteria() : new Criteria().andOperator(criteriaList);
+    }
+
+    private static long totalOf(List<Document> totalDocumentList) {
+        if (null == totalDocumentList || totalDocumentList.isEmpty()) {
+            return 0;
+        }
+        return ((Number) totalDocumentList.get(0).get(TOTAL)).longValue();
+    }
+
+    // $sortByCount already orders by count, highest first
+    private static Map<String, Long> countsOf(Document result, String field) {
+        Map<String, Long> countByValue = new LinkedHashMap<>();
+        if (null == result) {
+            return countByValue;
+        }
+
+        for (Document bucket : result.getList(field, Document.class, List.of())) {
+            countByValue.put(String.valueOf(bucket.get("_id")), ((Number) bucket.get("count")).longValue());
+        }
+        return countByValue;
+    }
+
+    private <T> T getOrCompute(Map<String, CachedValue<T>> cache, String signature, Supplier<T> loader) {
+        long now = System.currentTimeMillis();
+        CachedValue<T> cached = cache.get(signature);
+        if (null != cached && cached.expiresAt > now) {
+            return cached.value;
+        }
+
+        T value = loader.get();
+
+        if (cache.size() >= cacheMaxEntries) {
+            cache.values().removeIf(entry -> entry.expiresAt <= now);
+            if (cache.size() >= cacheMaxEntries) {
+                log.info("[ProductCountStrategy] Cache full with {} live entries, clearing", cache.size());
+                cache.clear();
+            }
+        }
+        cache.put(signature, new CachedValue<>(value, now + cacheTtlMs));
+        return value;
+    }
+
+    private static String normalise(List<String> values) {
+        if (null == values || values.isEmpty()) {
+            return "";
+        }
+        return new TreeSet<>(values).stream()
+                .map(ProductCountStrategy::lengthPrefixed)
+                .collect(Collectors.joining(","));
+    }
+
+    // Values may contain the separators, e.g. genres ["a,b"] and ["a", "b"] must not give the same signature
+    private static String lengthPrefixed(String value) {
+        return null == value ? "" : value.length() + ":" + value;
+    }
+
+    private static final class CachedValue<T> {
+        private final T value;
+        private final long expiresAt;
+
+        private CachedValue(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.gamersblended.junes.repository.mongodb;
+
+import com.gamersblended.junes.model.Product;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keyset position in a product listing: the sort of the listing, plus the sort key and _id of the last product served
+ * Encoded as an opaque URL-safe token, so clients only ever pass back what they were given
+ * _id breaks ties in the same direction as the sort key, which makes the order total and the position unambiguous
+ */
+public final class ProductListingCursor {
+
+    private static final String ID_FIELD = "_id";
+    private static final Set<String> SUPPORTED_SORT_FIELDS = Set.of(ID_FIELD, "price", "release_date", "units_sold", "name", "created_on");
+    private static final String SEPARATOR = "|";
+
+    private final String sortField;
+    private final boolean descending;
+
+    // Both null on the first page
+    private final ObjectId lastID;
+    private final String lastSortValue;
+
+    private ProductListingCursor(String sortField, boolean descending, ObjectId lastID, String lastSortValue) {
+        this.sortField = sortField;
+        this.descending = descending;
+        this.lastID = lastID;
+        this.lastSortValue = lastSortValue;
+    }
+
+    /**
+     * Cursor for the first page of a listing
+     *
+     * @param sort at most one order, on a Product or Mongo field name, unsorted means _id order
+     * @return cursor positioned before the first product
+     */
+    public static ProductListingCursor firstPage(Sort sort) {
+        List<Sort.Order> orderList = sort.toList();
+        if (orderList.isEmpty()) {
+            return new ProductListingCursor(ID_FIELD, false, null, null);
+        }
+        if (orderList.size() > 1) {
+            throw new IllegalArgumentException("Cursor pagination supports a single sort field, given sort: " + sort);
+        }
+
+        String sortField = toFieldName(orderList.get(0).getProperty());
+        if (!SUPPORTED_SORT_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Cursor pagination cannot sort by " + orderList.get(0).getProperty());
+        }
+        return new ProductListingCursor(sortField, orderList.get(0).isDescending(), null, null);
+    }
+
+    /**
+     * @param token value previously returned by encode()
+     * @return decoded cursor
+     */
+    public static ProductListingCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+
+            // Sort value goes last as it is the only part that can contain the separator
+            String[] parts = decoded.split("\\" + SEPARATOR, 4);
+            if (parts.length != 4 || !SUPPORTED_SORT_FIELDS.contains(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            ProductListingCursor cursor = new ProductListingCursor(parts[0], "d".equals(parts[1]), new ObjectId(parts[2]), parts[3]);
+            cursor.typedSortValue(); // Fail now rather than inside the query
+            return cursor;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = sortField + SEPARATOR + (descending ? "d" : "a") + SEPARATOR + lastID.toHexString() + SEPARATOR + lastSortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param lastProduct last product of the page just served
+     * @return cursor positioned right after lastProduct, under the same sort
+     */
+    public ProductListingCursor after(Product lastProduct) {
+        return new ProductListingCursor(sortField, descending, lastProduct.getId(), sortValueOf(lastProduct));
+    }
+
+    public boolean isFirstPage() {
+        return null == lastID;
+    }
+
+    public String getSortField() {
+        return sortField;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public Sort toSort() {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        if (ID_FIELD.equals(sortField)) {
+            return Sort.by(direction, ID_FIELD);
+        }
+        return Sort.by(direction, sortField).and(Sort.by(direction, ID_FIELD));
+    }
+
+    /**
+     * Matches products strictly after this cursor, null on the first page
+     * Wrapped in $and so it never collides with the $or criteria of the filters
+     */
+    public Criteria toCriteria() {
+        if (isFirstPage()) {
+            return null;
+        }
+
+        Criteria afterID = descending ? Criteria.where(ID_FIELD).lt(lastID) : Criteria.where(ID_FIELD).gt(lastID);
+        if (ID_FIELD.equals(sortField)) {
+            return new Criteria().andOperator(afterID);
+        }
+
+        Object sortValue = typedSortValue();
+        Criteria afterSortValue = descending ? Criteria.where(sortField).lt(sortValue) : Criteria.where(sortField).gt(sortValue);
+
+        return new Criteria().andOperator(new Criteria().orOperator(
+                afterSortValue,
+                new Criteria().andOperator(Criteria.where(sortField).is(sortValue), afterID)
+        ));
+    }
+
+    /**
+     * Same ordering as the Mongo query, for walking an in-memory sort order
+     *
+     * @return negative if product comes before this cursor, 0 if it is the cursor's product, positive if after
+     */
+    public int compareTo(Product product) {
+        if (isFirstPage()) {
+            return 1;
+        }
+
+        int comparison = ID_FIELD.equals(sortField) ? 0 : compareSortValue(product);
+        if (0 == comparison) {
+            comparison = product.getId().compareTo(lastID);
+        }
+        return descending ? -comparison : comparison;
+    }
+
+    private int compareSortValue(Product product) {
+        return switch (sortField) {
+            case "price" -> product.getPrice().compareTo(new BigDecimal(lastSortValue));
+            case "release_date" -> product.getReleaseDate().compareTo(LocalDate.parse(lastSortValue));
+            case "units_sold" -> product.getUnitsSold().compareTo(Integer.valueOf(lastSortValue));
+            case "name" -> product.getName().compareTo(lastSortValue);
+            case "created_on" -> product.getCreatedOn().compareTo(LocalDate.parse(lastSortValue));
+            default -> throw new IllegalStateException("Unsupported sort field: " + sortField);
+        };
+    }
+
+    // Same value types CustomProductRepositoryImpl uses in its filters
+    private Object typedSortValue() {
+        return switch (sortField) {
+            case ID_FIELD -> lastID;
+            case "price" -> new BigDecimal(lastSortValue).doubleValue();
+            case "release_date", "created_on" -> LocalDate.parse(lastSortValue);
+            case "units_sold" -> Integer.valueOf(lastSortValue);
+            case "name" -> lastSortValue;
+            default -> throw new IllegalStateException("Unsupported sort field: " + sortField);
+        };
+    }
+
+    private String sortValueOf(Product product) {
+        return switch (sortField) {
+            case ID_FIELD -> product.getId().toHexString();
+            case "price" -> product.getPrice().toPlainString();
+            case "release_date" -> product.getReleaseDate().toString();
+            case "units_sold" -> product.getUnitsSold().toString();
+            case "name" -> product.getName();
+            case "created_on" -> product.getCreatedOn().toString();
+            default -> throw new IllegalStateException("Unsupported sort field: " + sortField);
+        };
+    }
+
+    // Sort properties may be given as Product field names or as Mongo field names
+    private static String toFieldName(String property) {
+        return switch (property) {
+            case "id" -> ID_FIELD;
+            case "releaseDate" -> "release_date";
+            case "unitsSold" -> "units_sold";
+            case "createdOn" -> "created_on";
+            default -> property;
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package com.gamersblended.junes.repository.mongodb;
 
 import com.gamersblended.junes.model.Product;
+import com.gamersblended.junes.model.ProductSummary;
 import org.bson.types.ObjectId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -32,10 +33,20 @@ public interface ProductRepository extends MongoRepository<Product, String>, Cus
     @Query("{ 'created_on': { '$lte': '?0' } }")
     Page<Product> findBestSellersBeforeDateWithPagination(LocalDate currentDate, Pageable pageable);
 
+    // Projection variants: same queries, only the fields in ProductSummary are read
+    @Query(value = "{ 'release_date': { '$gt': '?0' } }", fields = ProductSummary.FIELDS)
+    Page<ProductSummary> findPreOrderSummariesAfterDateWithPagination(LocalDate currentDate, Pageable pageable);
+
+    @Query(value = "{ 'created_on': { '$lte': '?0' } }", fields = ProductSummary.FIELDS)
+    Page<ProductSummary> findBestSellerSummariesBeforeDateWithPagination(LocalDate currentDate, Pageable pageable);
+
     Optional<Product> findById(ObjectId id);
 
     List<Product> findByIdIn(List<ObjectId> idList);
 
+    @Query(value = "{ '_id': { '$in': ?0 } }", fields = ProductSummary.FIELDS)
+    List<ProductSummary> findSummariesByIdIn(List<ObjectId> idList);
+
     List<Product> findBySlug(String slug);
 
     // Specific query, MongoDB query syntax:
@@ -22,6 +22,7 @@ import org.springframework.stereotype.Service;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.UUID;
 
 import static com.gamersblended.junes.constant.TokenPurpose.SIGNUP_EMAIL;
 import static com.gamersblended.junes.util.PasswordValidator.validatePassword;
@@ -41,6 +42,7 @@ public class AuthService {
     private final EmailVerificationTokenService emailTokenService;
     private final EmailVerificationTokenRepository emailVerificationTokenRepository;
     private final AccessTokenService accessTokenService;
+    private final CartService cartService;
     public static final String VERIFY_EMAIL_ROUTE = "/verify?token=";
 
     public AuthService(
@@ -49,7 +51,8 @@ public class AuthService {
             EmailValidatorService emailValidator,
             EmailVerificationTokenService emailTokenService,
             EmailVerificationTokenRepository emailVerificationTokenRepository,
-            AccessTokenService accessTokenService) {
+            AccessTokenService accessTokenService,
+            CartService cartService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.emailProducerService = emailProducerService;
@@ -57,6 +60,7 @@ public class AuthService {
         this.emailTokenService = emailTokenService;
         this.emailVerificationTokenRepository = emailVerificationTokenRepository;
         this.accessTokenService = accessTokenService;
+        this.cartService = cartService;
     }
 
     @Transactional
@@ -146,8 +150,11 @@ public class AuthService {
 
     }
 
+    /**
+     * @param sessionID guest session of the caller, its cart is merged into the user cart, optional
+     */
     @Transactional
-    public LoginResponse login(LoginRequest loginRequest) {
+    public LoginResponse login(LoginRequest loginRequest, UUID sessionID) {
         String email = loginRequest.getEmail();
         User user = userRepository.getUserByEmail(email)
                 .orElseThrow(() -> {
@@ -175,6 +182,13 @@ public class AuthService {
 
         String token = accessTokenService.generateAccessToken(user, email);
 
+        // A failed merge leaves the guest cart in place, it should not fail the login
+        try {
+            cartService.mergeGuestCart(user.getUserID(), sessionID);
+        } catch (Exception ex) {
+            log.error("Failed to merge guest cart of sessionID: {} into cart of userID: {}", sessionID, user.getUserID(), ex);
+        }
+
         LoginResponse loginResponse = new LoginResponse();
         loginResponse.setToken(token);
         loginResponse.setUserID(user.getUserID());
@@ -0,0 +1,84 @@
+package com.gamersblended.junes.service;
+
+import com.gamersblended.junes.model.Cart;
+import com.gamersblended.junes.model.CartItem;
+import com.gamersblended.junes.model.ProductSummary;
+import com.gamersblended.junes.repository.catalogue.ProductCatalogueIndex;
+import com.gamersblended.junes.repository.catalogue.ProductPriceSnapshot;
+import com.gamersblended.junes.util.MoneyUtils;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Prices carts in long cents from the price snapshot of the catalogue index, no Mongo or BigDecimal work per line
+ * Prices stored in the cart are only used to flag lines whose price changed since they were added
+ * Products not in the snapshot yet, added since the last resync or while the index is cold, use the summary price
+ */
+@Service
+public class CartPricingService {
+
+    private final ProductCatalogueIndex productCatalogueIndex;
+
+    public CartPricingService(ProductCatalogueIndex productCatalogueIndex) {
+        this.productCatalogueIndex = productCatalogueIndex;
+    }
+
+    /**
+     * @param cart       cart to price
+     * @param summaryMap productID to summary of the products in cart
+     * @return priced lines and totals, products in neither the snapshot nor summaryMap are left out
+     */
+    public PricedCart priceCart(Cart cart, Map<String, ProductSummary> summaryMap) {
+        ProductPriceSnapshot snapshot = productCatalogueIndex.getPriceSnapshot();
+        Map<String, PricedLine> lineMap = new HashMap<>();
+        long totalCents = 0;
+        int itemCount = 0;
+        boolean hasPriceChanges = false;
+
+        for (CartItem item : cart.getItemList()) {
+            OptionalLong unitCents = snapshot.getPriceCents(item.getProductID());
+            if (unitCents.isEmpty()) {
+                ProductSummary summary = summaryMap.get(item.getProductID());
+                if (null == summary || null == summary.getPrice()) {
+                    continue;
+                }
+                unitCents = OptionalLong.of(MoneyUtils.toCents(summary.getPrice()));
+            }
+
+            long currentCents = unitCents.getAsLong();
+            long subtotalCents = Math.multiplyExact(currentCents, item.getQuantity().longValue());
+            boolean isPriceChanged = null != item.getPrice() && MoneyUtils.toCents(item.getPrice()) != currentCents;
+
+            lineMap.put(item.getProductID(), new PricedLine(currentCents, subtotalCents, isPriceChanged));
+            totalCents = Math.addExact(totalCents, subtotalCents);
+            itemCount += item.getQuantity();
+            hasPriceChanges |= isPriceChanged;
+        }
+
+        return new PricedCart(snapshot.getVersion(), lineMap, totalCents, itemCount, hasPriceChanges);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PricedLine {
+        private final long unitPriceCents;
+        private final long subtotalCents;
+        private final boolean isPriceChanged;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PricedCart {
+        // Version of the price snapshot used, 0 if every price came from summaries
+        private final long priceVersion;
+        private final Map<String, PricedLine> lineMap;
+        private final long totalCents;
+        private final int itemCount;
+        private final boolean hasPriceChanges;
+    }
+}
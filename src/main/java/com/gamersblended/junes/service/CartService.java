@@ -1,44 +1,46 @@
 package com.gamersblended.junes.service;
 
+import com.gamersblended.junes.constant.CartMutationType;
 import com.gamersblended.junes.dto.CartItemDTO;
+import com.gamersblended.junes.dto.CartMutationDTO;
 import com.gamersblended.junes.dto.ProductInCartDTO;
-import com.gamersblended.junes.exception.DatabaseInsertionException;
+import com.gamersblended.junes.dto.response.CartPageResponse;
+import com.gamersblended.junes.exception.InputValidationException;
 import com.gamersblended.junes.exception.InvalidQuantityException;
 import com.gamersblended.junes.exception.MissingIdentifierException;
 import com.gamersblended.junes.exception.ProductNotFoundException;
 import com.gamersblended.junes.model.Cart;
 import com.gamersblended.junes.model.CartItem;
 import com.gamersblended.junes.model.Product;
-import com.gamersblended.junes.repository.RedisCartRepository;
-import com.gamersblended.junes.repository.jpa.CartDatabaseRepository;
-import com.gamersblended.junes.repository.mongodb.ProductRepository;
-import jakarta.transaction.Transactional;
+import com.gamersblended.junes.model.ProductSummary;
+import com.gamersblended.junes.repository.CartStorage;
+import com.gamersblended.junes.service.cache.ProductMetadataCacheService;
+import com.gamersblended.junes.util.MoneyUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.bson.types.ObjectId;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class CartService {
 
     private static final String UNKNOWN_PRODUCT = "Unknown product";
-    private final RedisCartRepository redisCartRepository;
-    private final CartDatabaseRepository cartDatabaseRepository; // For async persistence
-    private final ProductRepository productRepository;
-
-    public CartService(RedisCartRepository redisCartRepository, CartDatabaseRepository cartDatabaseRepository, ProductRepository productRepository) {
-        this.redisCartRepository = redisCartRepository;
-        this.cartDatabaseRepository = cartDatabaseRepository;
-        this.productRepository = productRepository;
+    private static final int MAX_MUTATIONS_PER_REQUEST = 100;
+    private final CartStorage cartStorage;
+    private final CartWriteBehindService cartWriteBehindService; // For async persistence
+    private final ProductMetadataCacheService productMetadataCacheService;
+    private final ProductExistenceChecker productExistenceChecker;
+    private final CartPricingService cartPricingService;
+
+    public CartService(CartStorage cartStorage, CartWriteBehindService cartWriteBehindService, ProductMetadataCacheService productMetadataCacheService, ProductExistenceChecker productExistenceChecker, CartPricingService cartPricingService) {
+        this.cartStorage = cartStorage;
+        this.cartWriteBehindService = cartWriteBehindService;
+        this.productMetadataCacheService = productMetadataCacheService;
+        this.productExistenceChecker = productExistenceChecker;
+        this.cartPricingService = cartPricingService;
     }
 
     public Cart getOrCreateCart(UUID userID, UUID sessionID) {
@@ -46,147 +48,183 @@ public class CartService {
             throw new MissingIdentifierException("User ID or Session ID required");
         }
 
-        Optional<Cart> cart = redisCartRepository.getCart(userID, sessionID);
-        return cart.orElseGet(() -> redisCartRepository.createCart(userID, sessionID));
+        Optional<Cart> cart = cartStorage.getCart(userID, sessionID);
+        return cart.orElseGet(() -> cartStorage.createCart(userID, sessionID));
+    }
+
+    /**
+     * Read-only lookup, unlike getOrCreateCart a missing cart is not created
+     *
+     * @return cart, empty if there is none or neither ID is given
+     */
+    public Optional<Cart> findCart(UUID userID, UUID sessionID) {
+        if (null == userID && null == sessionID) {
+            return Optional.empty();
+        }
+        return cartStorage.getCart(userID, sessionID);
+    }
+
+    /**
+     * Moves the guest cart of the session into the user cart, quantities of products in both are added up
+     * Merged cart goes to the database with the next write-behind flush
+     *
+     * @param userID    user who just logged in
+     * @param sessionID session that held the guest cart
+     */
+    public void mergeGuestCart(UUID userID, UUID sessionID) {
+        if (null == userID || null == sessionID) {
+            return;
+        }
+
+        if (cartStorage.mergeGuestCart(userID, sessionID)) {
+            log.info("[CartService] Merged guest cart of sessionID = {} into cart of userID = {}", sessionID, userID);
+            cartWriteBehindService.markDirty(userID, sessionID);
+        }
     }
 
     public void addItemToCart(UUID userID, UUID sessionID, CartItemDTO cartItemDTO) {
         validateForCartItems(userID, sessionID, cartItemDTO.getQuantity(), cartItemDTO.getProductID());
 
-        boolean success = redisCartRepository.addItem(userID, sessionID, cartItemDTO);
+        boolean success = cartStorage.addItem(userID, sessionID, cartItemDTO);
 
         if (success) {
-            asyncPersistToDatabase(userID, sessionID);
+            cartWriteBehindService.markDirty(userID, sessionID);
         }
     }
 
     public void removeItemFromCart(UUID userID, UUID sessionID, String productID) {
         validateForCartItems(userID, sessionID, productID);
 
-        boolean success = redisCartRepository.removeItem(userID, sessionID, productID);
+        boolean success = cartStorage.removeItem(userID, sessionID, productID);
 
         if (success) {
-            asyncPersistToDatabase(userID, sessionID);
+            cartWriteBehindService.markDirty(userID, sessionID);
         }
     }
 
     public void updateItemQuantity(UUID userID, UUID sessionID, String productID, int quantity) {
         validateForCartItems(userID, sessionID, quantity, productID);
 
-        boolean success = redisCartRepository.updateItemQuantity(userID, sessionID, productID, quantity);
+        boolean success = cartStorage.updateItemQuantity(userID, sessionID, productID, quantity);
 
         if (success) {
-            asyncPersistToDatabase(userID, sessionID);
+            cartWriteBehindService.markDirty(userID, sessionID);
         }
     }
 
-    public void clearCart(UUID userID, UUID sessionID) {
+    /**
+     * Applies many item changes at once, e.g. restoring a saved cart or buying an order again
+     * All products are checked with one lookup and all changes land in one Redis write
+     *
+     * @param mutationList changes applied in order
+     */
+    public void applyCartMutations(UUID userID, UUID sessionID, List<CartMutationDTO> mutationList) {
         if (userID == null && sessionID == null) {
             throw new MissingIdentifierException("User ID or Session ID required");
         }
+        if (null == mutationList || mutationList.isEmpty()) {
+            throw new InputValidationException("At least one cart change required");
+        }
+        if (mutationList.size() > MAX_MUTATIONS_PER_REQUEST) {
+            throw new InputValidationException("At most " + MAX_MUTATIONS_PER_REQUEST + " cart changes allowed per request");
+        }
 
-        boolean success = redisCartRepository.clearCart(userID, sessionID);
-
-        if (success) {
-            asyncPersistToDatabase(userID, sessionID);
+        Set<String> productIDSet = new HashSet<>();
+        for (CartMutationDTO mutation : mutationList) {
+            if (null == mutation.getType() || null == mutation.getProductID()) {
+                throw new InputValidationException("Each cart change needs a type and a product ID");
+            }
+            if (CartMutationType.REMOVE != mutation.getType()
+                    && (null == mutation.getQuantity() || Boolean.FALSE.equals(validateQuantity(mutation.getQuantity())))) {
+                throw new InvalidQuantityException("Error in updating quantity due to invalid quantity value: " + mutation.getQuantity());
+            }
+            productIDSet.add(mutation.getProductID());
         }
-    }
 
-    public boolean deleteCart(UUID userID, UUID sessionID) {
-        return redisCartRepository.deleteCart(userID, sessionID);
-    }
+        Map<String, Product> productMap = productMetadataCacheService.getProductsByID(productIDSet);
+        List<String> missingProductIDList = productIDSet.stream()
+                .filter(productID -> !productMap.containsKey(productID))
+                .toList();
+        if (!missingProductIDList.isEmpty()) {
+            log.error("Product IDs not found: {}", missingProductIDList);
+            throw new ProductNotFoundException("Products not found: " + missingProductIDList);
+        }
 
-    @Async
-    @Transactional
-    public void asyncPersistToDatabase(UUID userID, UUID sessionID) {
-        // Only persist registered user carts to database
-        if (null == userID) {
-            return;
+        // Added items take the catalogue price, as single adds store the price they are given
+        Map<String, BigDecimal> priceMap = new HashMap<>();
+        for (CartMutationDTO mutation : mutationList) {
+            if (CartMutationType.ADD == mutation.getType()) {
+                priceMap.put(mutation.getProductID(), productMap.get(mutation.getProductID()).getPrice());
+            }
         }
 
-        try {
-            syncCartFromRedis(userID, sessionID);
+        boolean success = cartStorage.applyMutations(userID, sessionID, mutationList, priceMap);
 
-            log.info("Async persisted cart to database for userID = {}", userID);
-        } catch (DatabaseInsertionException ex) {
-            log.error("Error persisting cart to database for userID = {}", userID, ex);
-            throw ex;
+        if (success) {
+            cartWriteBehindService.markDirty(userID, sessionID);
         }
     }
 
-    public void syncCartFromRedis(UUID userID, UUID sessionID) {
-        Optional<Cart> redisCart = redisCartRepository.getCart(userID, sessionID);
-
-        redisCart.ifPresent(rCart -> {
-            Cart dbCart = cartDatabaseRepository.findByUserID(userID)
-                    .orElse(new Cart());
-
-            dbCart.setUserID(userID);
-            dbCart.setSessionID(sessionID);
-
-            Map<String, CartItem> existingItems = dbCart.getItemList().stream()
-                    .collect(Collectors.toMap(CartItem::getProductID, Function.identity()));
-
-            // Remove items not in Redis cart
-            Set<String> redisProductIDSet = rCart.getItemList().stream()
-                    .map(CartItem::getProductID)
-                    .collect(Collectors.toSet());
-            dbCart.getItemList().removeIf(i -> !redisProductIDSet.contains(i.getProductID()));
-
-            // Update existing or add new
-            for (CartItem rItem : rCart.getItemList()) {
-                if (existingItems.containsKey(rItem.getProductID())) {
-                    CartItem existingItem = existingItems.get(rItem.getProductID());
-                    existingItem.setQuantity(rItem.getQuantity());
-                    existingItem.setPrice(rItem.getPrice());
-                } else {
-                    dbCart.addItem(rItem);
-                }
-            }
+    public void clearCart(UUID userID, UUID sessionID) {
+        if (userID == null && sessionID == null) {
+            throw new MissingIdentifierException("User ID or Session ID required");
+        }
 
-            cartDatabaseRepository.save(dbCart);
+        boolean success = cartStorage.clearCart(userID, sessionID);
 
-        });
+        if (success) {
+            cartWriteBehindService.markDirty(userID, sessionID);
+        }
     }
 
-    public Page<ProductInCartDTO> getCartProducts(UUID userID, UUID sessionID, Pageable pageable) {
+    public boolean deleteCart(UUID userID, UUID sessionID) {
+        return cartStorage.deleteCart(userID, sessionID);
+    }
+
+    public CartPageResponse getCartProducts(UUID userID, UUID sessionID, Pageable pageable) {
         Cart cart = getOrCreateCart(userID, sessionID);
         log.info("userID {} has {} item(s) in cart.", userID, cart.getItemList().size());
 
         return generateCartPage(cart, pageable);
     }
 
-    public Page<ProductInCartDTO> generateCartPage(Cart cart, Pageable pageable) {
+    public CartPageResponse generateCartPage(Cart cart, Pageable pageable) {
 
         if (cart.getItemList().isEmpty()) {
-            return Page.empty(pageable);
+            return new CartPageResponse(List.of(), pageable.getPageNumber(), pageable.getPageSize(), 0, 0,
+                    MoneyUtils.fromCents(0), false, 0);
         }
         // Extract product IDs to fetch metadata from product database
-        List<ObjectId> productIDFromCartList = cart.getItemList().stream()
-                .map(item -> new ObjectId(item.getProductID()))
+        List<String> productIDFromCartList = cart.getItemList().stream()
+                .map(CartItem::getProductID)
                 .toList();
 
-        // Fetch product metadata from product database
-        List<Product> metadataList = productRepository.findByIdIn(productIDFromCartList);
-        Map<String, Product> productMap = metadataList.stream()
-                .collect(Collectors.toMap(product -> product.getId().toHexString(), Function.identity()));
+        // Fetch only the product fields shown in cart, from cache or product database
+        Map<String, ProductSummary> productMap = productMetadataCacheService.getSummariesByID(productIDFromCartList);
+
+        // Prices come from the in-memory price snapshot, summaries only fill in products it does not have yet
+        CartPricingService.PricedCart pricedCart = cartPricingService.priceCart(cart, productMap);
 
-        // Create DTO using cart items and metadata data
+        // Create DTO using cart items, metadata and current prices
         List<ProductInCartDTO> productsInCartList = cart.getItemList().stream()
                 .map(currentProductInCartItem -> {
-                    Product metadata = productMap.get(currentProductInCartItem.getProductID());
-                    if (metadata != null) {
+                    ProductSummary metadata = productMap.get(currentProductInCartItem.getProductID());
+                    CartPricingService.PricedLine pricedLine = pricedCart.getLineMap().get(currentProductInCartItem.getProductID());
+                    if (metadata != null && pricedLine != null) {
                         return new ProductInCartDTO(
                                 currentProductInCartItem.getProductID(),
                                 metadata.getName(),
                                 metadata.getSlug(),
-                                metadata.getPrice(),
+                                MoneyUtils.fromCents(pricedLine.getUnitPriceCents()),
                                 metadata.getPlatform(),
                                 metadata.getRegion(),
                                 metadata.getEdition(),
                                 metadata.getProductImageUrl(),
                                 currentProductInCartItem.getQuantity(),
-                                currentProductInCartItem.getCreatedOn()
+                                currentProductInCartItem.getCreatedOn(),
+                                currentProductInCartItem.getPrice(),
+                                MoneyUtils.fromCents(pricedLine.getSubtotalCents()),
+                                pricedLine.isPriceChanged()
                         );
                     } else {
                         // Case when productID not found in product database
@@ -200,13 +238,18 @@ public class CartService {
                                 UNKNOWN_PRODUCT,
                                 "",
                                 currentProductInCartItem.getQuantity(),
-                                currentProductInCartItem.getCreatedOn()
+                                currentProductInCartItem.getCreatedOn(),
+                                currentProductInCartItem.getPrice(),
+                                new BigDecimal("0.00"),
+                                false
                         );
                     }
                 })
                 .toList();
 
-        return new PageImpl<>(productsInCartList, pageable, cart.getItemList().size());
+        return new CartPageResponse(productsInCartList, pageable.getPageNumber(), pageable.getPageSize(),
+                cart.getItemList().size(), pricedCart.getItemCount(), MoneyUtils.fromCents(pricedCart.getTotalCents()),
+                pricedCart.isHasPriceChanges(), pricedCart.getPriceVersion());
     }
 
     /**
@@ -232,11 +275,10 @@ public class CartService {
             throw new InvalidQuantityException("Error in updating quantity due to invalid quantity value: " + quantity);
         }
 
-        productRepository.findById(new ObjectId(productID))
-                .orElseThrow(() -> {
-                    log.error("Product ID not found: {}", productID);
-                    return new ProductNotFoundException("Product not found");
-                });
+        if (!productExistenceChecker.exists(productID)) {
+            log.error("Product ID not found: {}", productID);
+            throw new ProductNotFoundException("Product not found");
+        }
     }
 
     public void validateForCartItems(UUID userID, UUID sessionID, String productID) {
@@ -244,10 +286,9 @@ public class CartService {
             throw new MissingIdentifierException("User ID or Session ID required");
         }
 
-        productRepository.findById(new ObjectId(productID))
-                .orElseThrow(() -> {
-                    log.error("Product ID not found: {}", productID);
-                    return new ProductNotFoundException("Product not found");
-                });
+        if (!productExistenceChecker.exists(productID)) {
+            log.error("Product ID not found: {}", productID);
+            throw new ProductNotFoundException("Product not found");
+        }
     }
 }
@@ -0,0 +1,176 @@
+package com.gamersblended.junes.service;
+
+import com.gamersblended.junes.model.Cart;
+import com.gamersblended.junes.repository.CartDatabaseBatchWriter;
+import com.gamersblended.junes.repository.CartStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind of user carts from Redis to Postgres
+ * A mutation only marks its cart dirty, repeated mutations of the same cart before the next flush collapse into one write
+ * Each flush reads the latest cart from Redis and writes all dirty carts in JDBC batches, so DB load follows active carts rather than clicks
+ * Pending carts are bounded: once full, the caller writes its own cart right away, which slows producers down instead of dropping writes
+ * A failed batch is retried one cart at a time, so one bad cart cannot hold back the rest, a cart failing max-attempts flushes in a row is dropped
+ */
+@Slf4j
+@Service
+public class CartWriteBehindService {
+
+    private final CartStorage cartStorage;
+    private final CartDatabaseBatchWriter cartDatabaseBatchWriter;
+
+    // userID alone is the key of a user cart in Redis
+    private final Set<UUID> dirtyUserIDSet = ConcurrentHashMap.newKeySet();
+
+    // userID -> failed writes in a row
+    private final Map<UUID, Integer> failedAttemptMap = new ConcurrentHashMap<>();
+
+    private final int maxPending;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    private final Counter markedCounter;
+    private final Counter coalescedCounter;
+    private final Counter flushedCounter;
+    private final Counter backpressureCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    public CartWriteBehindService(CartStorage cartStorage,
+                                  CartDatabaseBatchWriter cartDatabaseBatchWriter,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${cart.write-behind.max-pending:10000}") int maxPending,
+                                  @Value("${cart.write-behind.batch-size:200}") int batchSize,
+                                  @Value("${cart.write-behind.max-attempts:5}") int maxAttempts) {
+        this.cartStorage = cartStorage;
+        this.cartDatabaseBatchWriter = cartDatabaseBatchWriter;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+
+        this.markedCounter = meterRegistry.counter("cart.write_behind.marked");
+        this.coalescedCounter = meterRegistry.counter("cart.write_behind.coalesced");
+        this.flushedCounter = meterRegistry.counter("cart.write_behind.flushed");
+        this.backpressureCounter = meterRegistry.counter("cart.write_behind.backpressure");
+        this.failedCounter = meterRegistry.counter("cart.write_behind.failed");
+        this.flushTimer = meterRegistry.timer("cart.write_behind.flush");
+        Gauge.builder("cart.write_behind.pending", dirtyUserIDSet, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * Schedules the cart for the next flush, guest carts are not persisted
+     *
+     * @param userID    owner of cart
+     * @param sessionID session of cart, may be null, the user cart is found by userID alone
+     */
+    public void markDirty(UUID userID, UUID sessionID) {
+        if (null == userID) {
+            return;
+        }
+
+        markedCounter.increment();
+        if (dirtyUserIDSet.contains(userID)) {
+            coalescedCounter.increment();
+            return;
+        }
+
+        // Full: write this cart on the caller's thread rather than queue it
+        if (dirtyUserIDSet.size() >= maxPending) {
+            backpressureCounter.increment();
+            log.warn("[CartWriteBehind] {} carts pending, writing cart of userID = {} sessionID = {} inline", dirtyUserIDSet.size(), userID, sessionID);
+            writeBatch(List.of(userID));
+            return;
+        }
+
+        dirtyUserIDSet.add(userID);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:2000}")
+    public void flush() {
+        if (dirtyUserIDSet.isEmpty()) {
+            return;
+        }
+
+        flushTimer.record(() -> {
+            List<UUID> batch = new ArrayList<>();
+            for (UUID userID : new ArrayList<>(dirtyUserIDSet)) {
+                // Removed before reading Redis, a mutation landing after this marks the cart again for the next flush
+                if (dirtyUserIDSet.remove(userID)) {
+                    batch.add(userID);
+                }
+
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            writeBatch(batch);
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("[CartWriteBehind] Flushing {} pending carts before shutdown", dirtyUserIDSet.size());
+        flush();
+    }
+
+    private void writeBatch(List<UUID> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Cart> cartList = new ArrayList<>();
+        try {
+            for (UUID userID : batch) {
+                cartStorage.getCart(userID, null).ifPresentOrElse(cartList::add, () -> failedAttemptMap.remove(userID));
+            }
+        } catch (Exception ex) {
+            // Redis is not the cart's fault, retry all of them without counting an attempt
+            log.error("[CartWriteBehind] Failed to read {} carts from Redis, retrying on next flush: {}", batch.size(), ex.getMessage());
+            dirtyUserIDSet.addAll(batch);
+            return;
+        }
+
+        try {
+            cartDatabaseBatchWriter.writeAll(cartList);
+            flushedCounter.increment(cartList.size());
+            cartList.forEach(cart -> failedAttemptMap.remove(cart.getUserID()));
+        } catch (Exception ex) {
+            log.warn("[CartWriteBehind] Failed to write batch of {} carts, writing them one at a time: {}", cartList.size(), ex.getMessage());
+            cartList.forEach(this::writeOne);
+        }
+    }
+
+    // Own transaction per cart, so only the bad cart fails
+    private void writeOne(Cart cart) {
+        UUID userID = cart.getUserID();
+
+        try {
+            cartDatabaseBatchWriter.writeAll(List.of(cart));
+            flushedCounter.increment();
+            failedAttemptMap.remove(userID);
+        } catch (Exception ex) {
+            int attempts = failedAttemptMap.merge(userID, 1, Integer::sum);
+            if (attempts >= maxAttempts) {
+                failedAttemptMap.remove(userID);
+                failedCounter.increment();
+                log.error("[CartWriteBehind] Dropping cart of userID = {} after {} failed writes: {}", userID, attempts, ex.getMessage());
+                return;
+            }
+
+            log.warn("[CartWriteBehind] Failed to write cart of userID = {} ({}/{}), retrying on next flush: {}", userID, attempts, maxAttempts, ex.getMessage());
+            dirtyUserIDSet.add(userID);
+        }
+    }
+}
@@ -7,6 +7,8 @@ import com.gamersblended.junes.exception.ProductNotFoundException;
 import com.gamersblended.junes.model.OutboxEvent;
 import com.gamersblended.junes.model.Product;
 import com.gamersblended.junes.repository.jpa.OutboxEventRepository;
+import com.gamersblended.junes.service.cache.ProductDetailsCacheService;
+import com.gamersblended.junes.service.cache.ProductMetadataCacheService;
 import com.mongodb.client.result.UpdateResult;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
@@ -29,11 +31,15 @@ public class InventoryService {
     private final MongoTemplate mongoTemplate;
     private final OutboxEventRepository outboxEventRepository;
     private final ObjectMapper objectMapper;
+    private final ProductMetadataCacheService productMetadataCacheService;
+    private final ProductDetailsCacheService productDetailsCacheService;
 
-    public InventoryService(MongoTemplate mongoTemplate, OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+    public InventoryService(MongoTemplate mongoTemplate, OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper, ProductMetadataCacheService productMetadataCacheService, ProductDetailsCacheService productDetailsCacheService) {
         this.mongoTemplate = mongoTemplate;
         this.outboxEventRepository = outboxEventRepository;
         this.objectMapper = objectMapper;
+        this.productMetadataCacheService = productMetadataCacheService;
+        this.productDetailsCacheService = productDetailsCacheService;
     }
 
     public boolean reserveStock(String productID, int quantity) {
@@ -52,8 +58,12 @@ public class InventoryService {
         );
 
         if (result.getModifiedCount() > 0) {
+            // Other nodes drop their copy once the InventoryChangedEvent is relayed, this node does not wait
+            productMetadataCacheService.invalidate(productID);
+
             // Successfully reserved, write outbox event for relay to publish
             Product product = mongoTemplate.findById(new ObjectId(productID), Product.class);
+            productDetailsCacheService.updateStock(productID, product.getStock());
             writeOutboxEvent(
                     productID,
                     product.getStock() + quantity,
@@ -82,6 +92,9 @@ public class InventoryService {
             throw new ProductNotFoundException("Product not found: " + productID);
         }
 
+        productMetadataCacheService.invalidate(productID);
+        productDetailsCacheService.updateStock(productID, product.getStock());
+
         // Successfully restored, write outbox event for relay to publish
         writeOutboxEvent(
                 productID,
@@ -2,7 +2,7 @@ package com.gamersblended.junes.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gamersblended.junes.dto.event.OrderCreatedEvent;
-import com.gamersblended.junes.repository.RedisCartRepository;
+import com.gamersblended.junes.repository.CartStorage;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -13,11 +13,11 @@ import org.springframework.stereotype.Service;
 @Service
 public class OrderConsumer {
 
-    private final RedisCartRepository cartRepository;
+    private final CartStorage cartRepository;
     private final CartService cartService;
     private final ObjectMapper objectMapper;
 
-    public OrderConsumer(RedisCartRepository cartRepository, CartService cartService, ObjectMapper objectMapper) {
+    public OrderConsumer(CartStorage cartRepository, CartService cartService, ObjectMapper objectMapper) {
         this.cartRepository = cartRepository;
         this.cartService = cartService;
         this.objectMapper = objectMapper;
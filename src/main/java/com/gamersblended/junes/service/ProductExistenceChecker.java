@@ -0,0 +1,46 @@
+package com.gamersblended.junes.service;
+
+import com.gamersblended.junes.model.Product;
+import com.gamersblended.junes.repository.catalogue.ProductCatalogueIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers "does this product exist" from the _id set of the catalogue index, without loading the product
+ * Mongo is only asked on a miss, for products added since the last resync, or while the index is cold
+ */
+@Slf4j
+@Service
+public class ProductExistenceChecker {
+
+    private final ProductCatalogueIndex productCatalogueIndex;
+    private final MongoTemplate mongoTemplate;
+
+    public ProductExistenceChecker(ProductCatalogueIndex productCatalogueIndex, MongoTemplate mongoTemplate) {
+        this.productCatalogueIndex = productCatalogueIndex;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * @param productID hex _id of product, an invalid one throws IllegalArgumentException
+     * @return true if the product exists
+     */
+    public boolean exists(String productID) {
+        ObjectId objectID = new ObjectId(productID);
+
+        if (productCatalogueIndex.containsProduct(objectID).orElse(false)) {
+            return true;
+        }
+
+        // exists() stops at the first match and returns no document
+        boolean isInMongo = mongoTemplate.exists(new Query(Criteria.where("_id").is(objectID)), Product.class);
+        if (isInMongo) {
+            log.info("[ProductExistenceChecker] Product {} not in catalogue index yet, found in Mongo", productID);
+        }
+        return isInMongo;
+    }
+}
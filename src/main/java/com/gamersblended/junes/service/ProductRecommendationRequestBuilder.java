@@ -11,10 +11,14 @@ import com.gamersblended.junes.repository.jpa.TransactionRepository;
 import com.gamersblended.junes.service.cache.OrderHistoryCacheService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -30,6 +34,9 @@ public class ProductRecommendationRequestBuilder {
     private final CartService cartService;
     private final OrderHistoryCacheService orderHistoryCacheService;
 
+    @Value("${recommender.signal-deadline-ms:500}")
+    private long signalDeadlineMs;
+
     @Autowired
     public ProductRecommendationRequestBuilder(TransactionRepository transactionRepository, CartService cartService, OrderHistoryCacheService orderHistoryCacheService) {
         this.transactionRepository = transactionRepository;
@@ -37,32 +44,67 @@ public class ProductRecommendationRequestBuilder {
         this.orderHistoryCacheService = orderHistoryCacheService;
     }
 
-    public List<ProductSignalDTO> getRecommendationInputDTOList(RecommendedProductRequestDTO requestDTO, UUID userID, UUID sessionID) {
+    /**
+     * Order history and cart are looked up at the same time on the bounded elastic scheduler, under one shared deadline
+     * A source that fails or misses the deadline contributes no signals instead of failing the request
+     *
+     * @return signals of browse history, purchases and cart, highest weight per product
+     */
+    public Mono<List<ProductSignalDTO>> getRecommendationInputDTOListAsync(RecommendedProductRequestDTO requestDTO, UUID userID, UUID sessionID) {
         // (1) Browsing cache
         log.info(ADD_ID_TO_LIST_LOG_MESSAGE, requestDTO.getHistoryCache().size(), SignalTypeEnums.BROWSE);
-        List<ProductSignalDTO> productIDList = new ArrayList<>(requestDTO.getHistoryCache().stream()
+        List<ProductSignalDTO> browseSignalList = requestDTO.getHistoryCache().stream()
                 .map(item -> new ProductSignalDTO(item.getProductID(),
                         SignalTypeEnums.BROWSE.getName(),
                         item.getViewAt()
                 ))
-                .toList());
+                .toList();
 
         // (2) Purchased items
-        List<ProductSignalDTO> purchasedProductIDList = userID != null
-                ? fetchOrderHistory(userID)
-                : Collections.emptyList();
-
-        if (!purchasedProductIDList.isEmpty()) {
-            log.info(ADD_ID_TO_LIST_LOG_MESSAGE, purchasedProductIDList.size(), SignalTypeEnums.PURCHASE);
-            productIDList.addAll(purchasedProductIDList);
-        }
+        Mono<List<ProductSignalDTO>> purchaseSignals = null != userID
+                ? withDeadline(Mono.fromCallable(() -> fetchOrderHistory(userID)), SignalTypeEnums.PURCHASE)
+                : Mono.just(List.of());
 
         // (3) Cart items
-        Cart cart = cartService.getOrCreateCart(userID, sessionID);
-        List<CartItem> cartItemList = cart.getItemList();
+        Mono<List<ProductSignalDTO>> cartSignals = withDeadline(Mono.fromCallable(() -> fetchCartSignals(userID, sessionID)), SignalTypeEnums.CART_ADD);
+
+        return Mono.zip(purchaseSignals, cartSignals)
+                .map(signals -> {
+                    List<ProductSignalDTO> productIDList = new ArrayList<>(browseSignalList);
+
+                    if (!signals.getT1().isEmpty()) {
+                        log.info(ADD_ID_TO_LIST_LOG_MESSAGE, signals.getT1().size(), SignalTypeEnums.PURCHASE);
+                        productIDList.addAll(signals.getT1());
+                    }
+                    if (!signals.getT2().isEmpty()) {
+                        log.info(ADD_ID_TO_LIST_LOG_MESSAGE, signals.getT2().size(), SignalTypeEnums.CART_ADD);
+                        productIDList.addAll(signals.getT2());
+                    }
+
+                    return filterHighestWeightSignals(productIDList);
+                });
+    }
+
+    // Both sources are subscribed together by zip, so the same timeout is one deadline shared by both
+    private Mono<List<ProductSignalDTO>> withDeadline(Mono<List<ProductSignalDTO>> source, SignalTypeEnums signalType) {
+        return source
+                .subscribeOn(Schedulers.boundedElastic())
+                .timeout(Duration.ofMillis(signalDeadlineMs))
+                .onErrorResume(ex -> {
+                    log.warn("[ProductRecommendationRequestBuilder] No {} signals, lookup failed or exceeded {}ms: {}",
+                            signalType, signalDeadlineMs, ex.toString());
+                    return Mono.just(List.of());
+                });
+    }
+
+    private List<ProductSignalDTO> fetchCartSignals(UUID userID, UUID sessionID) {
+        // Read only, a recommendation request must not create a cart
+        List<CartItem> cartItemList = cartService.findCart(userID, sessionID)
+                .map(Cart::getItemList)
+                .orElse(List.of());
 
         // Keep only the most recent n products in cartItemList
-        if (null != cartItemList && cartItemList.size() > MAX_ITEMS_SIZE) {
+        if (cartItemList.size() > MAX_ITEMS_SIZE) {
             log.info("cartItemList exceeded max capacity, keeping only the most recent {} products...", MAX_ITEMS_SIZE);
 
             List<CartItem> sortedCartItemList = new ArrayList<>(cartItemList);
@@ -73,18 +115,11 @@ public class ProductRecommendationRequestBuilder {
                     .toList();
         }
 
-        if (null != cartItemList && !cartItemList.isEmpty()) {
-            log.info(ADD_ID_TO_LIST_LOG_MESSAGE, cartItemList.size(), SignalTypeEnums.CART_ADD);
-            List<ProductSignalDTO> cartProductIDList = cartItemList.stream()
-                    .map(item -> new ProductSignalDTO(item.getProductID(),
-                            SignalTypeEnums.CART_ADD.getName(),
-                            item.getCreatedOn()))
-                    .toList();
-
-            productIDList.addAll(cartProductIDList);
-        }
-
-        return filterHighestWeightSignals(productIDList);
+        return cartItemList.stream()
+                .map(item -> new ProductSignalDTO(item.getProductID(),
+                        SignalTypeEnums.CART_ADD.getName(),
+                        item.getCreatedOn()))
+                .toList();
     }
 
     public RecommendationRequestDTO getRecommendationRequestDTO(List<ProductSignalDTO> productSignalDTOList) {
@@ -1,26 +1,37 @@
 package com.gamersblended.junes.service;
 
+import com.gamersblended.junes.constant.PlatformEnums;
 import com.gamersblended.junes.dto.ProductDTO;
 import com.gamersblended.junes.dto.ProductDetailsDTO;
+import com.gamersblended.junes.dto.ProductFacetCountsDTO;
 import com.gamersblended.junes.dto.ProductSliderItemDTO;
+import com.gamersblended.junes.dto.ProductSuggestionDTO;
 import com.gamersblended.junes.dto.ProductVariantDTO;
 import com.gamersblended.junes.dto.recommender.ProductRecommendationDTO;
-import com.gamersblended.junes.dto.recommender.ProductSignalDTO;
 import com.gamersblended.junes.dto.recommender.RecommendationRequestDTO;
 import com.gamersblended.junes.dto.recommender.RecommendationResponseDTO;
 import com.gamersblended.junes.dto.request.RecommendedProductRequestDTO;
+import com.gamersblended.junes.dto.response.CursorPageResponse;
 import com.gamersblended.junes.exception.InvalidProductIdException;
 import com.gamersblended.junes.exception.InvalidProductQueryException;
 import com.gamersblended.junes.exception.ProductFetchException;
 import com.gamersblended.junes.exception.ProductNotFoundException;
 import com.gamersblended.junes.mapper.ProductMapper;
 import com.gamersblended.junes.model.Product;
+import com.gamersblended.junes.model.ProductSummary;
+import com.gamersblended.junes.repository.catalogue.ProductCatalogueIndex;
+import com.gamersblended.junes.repository.catalogue.ProductSuggestionTrie;
+import com.gamersblended.junes.repository.mongodb.ProductListingCursor;
 import com.gamersblended.junes.repository.mongodb.ProductRepository;
+import com.gamersblended.junes.service.cache.FrontPageSliderCacheService;
+import com.gamersblended.junes.service.cache.ProductDetailsCacheService;
 import com.gamersblended.junes.service.cache.RecommendationCacheService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -35,70 +46,72 @@ public class ProductService {
     private static final int MAX_BROWSING_CACHE_SIZE = 30;
     private static final int PAGE_SIZE = 5;
     private static final String UNITS_SOLD = "units_sold";
+    private static final int MAX_SUGGESTION_QUERY_LENGTH = 100;
     private final ProductRepository productRepository;
+    private final ProductCatalogueIndex productCatalogueIndex;
     private final ProductRecommendationRequestBuilder productRecommendationRequestBuilder;
     private final RecommendationService recommendationService;
     private final RecommendationCacheService recommendationCacheService;
+    private final FrontPageSliderCacheService frontPageSliderCacheService;
+    private final ProductDetailsCacheService productDetailsCacheService;
     private final ProductMapper productMapper;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, ProductRecommendationRequestBuilder productRecommendationRequestBuilder, RecommendationService recommendationService, RecommendationCacheService recommendationCacheService, ProductMapper productMapper) {
+    public ProductService(ProductRepository productRepository, ProductCatalogueIndex productCatalogueIndex, ProductRecommendationRequestBuilder productRecommendationRequestBuilder, RecommendationService recommendationService, RecommendationCacheService recommendationCacheService, FrontPageSliderCacheService frontPageSliderCacheService, ProductDetailsCacheService productDetailsCacheService, ProductMapper productMapper) {
         this.productRepository = productRepository;
+        this.productCatalogueIndex = productCatalogueIndex;
         this.productRecommendationRequestBuilder = productRecommendationRequestBuilder;
         this.recommendationService = recommendationService;
         this.recommendationCacheService = recommendationCacheService;
+        this.frontPageSliderCacheService = frontPageSliderCacheService;
+        this.productDetailsCacheService = productDetailsCacheService;
         this.productMapper = productMapper;
     }
 
-    public Page<ProductSliderItemDTO> getRecommendedProducts(RecommendedProductRequestDTO requestDTO, Pageable pageable, UUID userID, UUID sessionID) {
+    /**
+     * Non-blocking: signals are gathered on the bounded elastic scheduler, Redis and the recommender are called without holding a thread
+     * Falls back to best sellers if the recommender fails or returns nothing
+     */
+    public Mono<Page<ProductSliderItemDTO>> getRecommendedProducts(RecommendedProductRequestDTO requestDTO, Pageable pageable, UUID userID, UUID sessionID) {
         List<RecommendedProductRequestDTO.HistoryItem> historyCache = requestDTO.getHistoryCache();
 
-        try {
-            // Trim browsing cache to most recent N items
-            if (null != historyCache && historyCache.size() > MAX_BROWSING_CACHE_SIZE) {
-                log.info("browsingCache exceeded max capacity, keeping only the most recent {} products...", MAX_BROWSING_CACHE_SIZE);
-
-                List<RecommendedProductRequestDTO.HistoryItem> trimmedCache = historyCache.stream()
-                        .sorted(Comparator.comparing(RecommendedProductRequestDTO.HistoryItem::getViewAt).reversed())
-                        .limit(MAX_BROWSING_CACHE_SIZE)
-                        .toList();
-
-                requestDTO.setHistoryCache(trimmedCache);
-            }
-
-            List<ProductSignalDTO> productSignalDTOList = productRecommendationRequestBuilder.getRecommendationInputDTOList(requestDTO, userID, sessionID);
-
-            RecommendationRequestDTO recommendationRequestDTO = productRecommendationRequestBuilder.getRecommendationRequestDTO(productSignalDTOList);
-
-            log.info("Total of {} IDs to be fed to recommender", recommendationRequestDTO.getSignalList().size());
+        // Trim browsing cache to most recent N items
+        if (null != historyCache && historyCache.size() > MAX_BROWSING_CACHE_SIZE) {
+            log.info("browsingCache exceeded max capacity, keeping only the most recent {} products...", MAX_BROWSING_CACHE_SIZE);
 
-            // Check cache first
-            RecommendationResponseDTO responseDTO = recommendationCacheService.get(productSignalDTOList)
-                    .orElseGet(() -> {
-                        // Call Recommender
-                        RecommendationResponseDTO newResponseDTO = recommendationService
-                                .getRecommendations(recommendationRequestDTO)
-                                .block();
+            List<RecommendedProductRequestDTO.HistoryItem> trimmedCache = historyCache.stream()
+                    .sorted(Comparator.comparing(RecommendedProductRequestDTO.HistoryItem::getViewAt).reversed())
+                    .limit(MAX_BROWSING_CACHE_SIZE)
+                    .toList();
 
-                        if (null != newResponseDTO && null != newResponseDTO.getProducts() && !newResponseDTO.getProducts().isEmpty()) {
-                            // Product signals = key
-                            recommendationCacheService.put(productSignalDTOList, newResponseDTO);
-                        }
-
-                        return newResponseDTO;
-                    });
-
-            if (null == responseDTO || null == responseDTO.getProducts() || responseDTO.getProducts().isEmpty()) {
-                log.warn("Recommendation engine returned empty response — falling back to best sellers");
-                return getBestSellers(LocalDate.now(), pageable.getPageNumber());
-            }
+            requestDTO.setHistoryCache(trimmedCache);
+        }
 
-            return toPagedSliderItems(responseDTO.getProducts(), pageable);
+        return productRecommendationRequestBuilder.getRecommendationInputDTOListAsync(requestDTO, userID, sessionID)
+                .flatMap(productSignalDTOList -> {
+                    RecommendationRequestDTO recommendationRequestDTO = productRecommendationRequestBuilder.getRecommendationRequestDTO(productSignalDTOList);
+
+                    log.info("Total of {} IDs to be fed to recommender", recommendationRequestDTO.getSignalList().size());
+
+                    // Check cache first, product signals = key
+                    return recommendationCacheService.getOrLoad(productSignalDTOList,
+                            () -> recommendationService.getRecommendations(recommendationRequestDTO));
+                })
+                .onErrorResume(ex -> {
+                    log.error("Exception in getRecommendedProducts — falling back to best sellers: ", ex);
+                    return Mono.empty();
+                })
+                .filter(this::hasProducts)
+                .map(responseDTO -> toPagedSliderItems(responseDTO.getProducts(), pageable))
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.warn("No recommendations — falling back to best sellers");
+                    return Mono.fromCallable(() -> getBestSellers(LocalDate.now(), pageable.getPageNumber()))
+                            .subscribeOn(Schedulers.boundedElastic());
+                }));
+    }
 
-        } catch (Exception ex) {
-            log.error("Exception in getRecommendedProducts — falling back to best sellers: ", ex);
-            return getBestSellers(LocalDate.now(), pageable.getPageNumber());
-        }
+    private boolean hasProducts(RecommendationResponseDTO responseDTO) {
+        return null != responseDTO && null != responseDTO.getProducts() && !responseDTO.getProducts().isEmpty();
     }
 
     /**
@@ -115,8 +128,15 @@ public class ProductService {
             }
             log.info("Searching for preorder products after the date: {}, page: {}", currentDate, pageNumber);
             PageRequest pageRequest = PageRequest.of(pageNumber, PAGE_SIZE, Sort.by(Sort.Direction.ASC, "release_date"));
-            Page<Product> preorderPage = productRepository.findPreOrderProductsAfterDateWithPagination(currentDate, pageRequest);
-            return preorderPage.map(productMapper::toSliderItemDTO);
+
+            // Precomputed by FrontPageSliderTasks, Mongo only for other dates or pages past the ranked items
+            Optional<Page<ProductSliderItemDTO>> materialisedPage = frontPageSliderCacheService.getPage(FrontPageSliderCacheService.PREORDERS, currentDate, pageRequest);
+            if (materialisedPage.isPresent()) {
+                return materialisedPage.get();
+            }
+
+            Page<ProductSummary> preorderPage = productRepository.findPreOrderSummariesAfterDateWithPagination(currentDate, pageRequest);
+            return preorderPage.map(productMapper::summaryToSliderItemDTO);
         } catch (Exception ex) {
             log.error("Exception in getPreOrderProducts: ", ex);
             return Page.empty();
@@ -137,8 +157,15 @@ public class ProductService {
             }
             log.info("Searching for best selling products for date: {}, page: {}", currentDate, pageNumber);
             PageRequest pageRequest = PageRequest.of(pageNumber, PAGE_SIZE, Sort.by(Sort.Direction.DESC, UNITS_SOLD));
-            Page<Product> bestSellingProductPage = productRepository.findBestSellersBeforeDateWithPagination(currentDate, pageRequest);
-            return bestSellingProductPage.map(productMapper::toSliderItemDTO);
+
+            // Precomputed by FrontPageSliderTasks, Mongo only for other dates or pages past the ranked items
+            Optional<Page<ProductSliderItemDTO>> materialisedPage = frontPageSliderCacheService.getPage(FrontPageSliderCacheService.BEST_SELLERS, currentDate, pageRequest);
+            if (materialisedPage.isPresent()) {
+                return materialisedPage.get();
+            }
+
+            Page<ProductSummary> bestSellingProductPage = productRepository.findBestSellerSummariesBeforeDateWithPagination(currentDate, pageRequest);
+            return bestSellingProductPage.map(productMapper::summaryToSliderItemDTO);
         } catch (Exception ex) {
             log.error("Exception in getBestSellers: ", ex);
             return Page.empty();
@@ -227,6 +254,107 @@ public class ProductService {
         }
     }
 
+    /**
+     * For get product listings by cursor API, same filters as getProductListings
+     * Costs the same on every page as there is no skip and no total count
+     *
+     * @param cursor   Opaque cursor from the previous page, null for the first page
+     * @param pageable Page size and sort settings, sort is only read on the first page (the cursor carries it after that)
+     * @return Products after the cursor, with the cursor for the next page
+     */
+    public CursorPageResponse<ProductSliderItemDTO> getProductListingsByCursor(String platform, String name, List<String> availability, BigDecimal minPrice, BigDecimal maxPrice, List<String> genres, List<String> regions, List<String> publishers, List<String> editions, List<String> languages, List<String> startingLetters, List<String> releaseDates, String currentDate, String cursor, Pageable pageable) {
+        try {
+            List<YearMonth> releaseYearMonthList = new ArrayList<>();
+            if (null != releaseDates && !releaseDates.isEmpty()) {
+                for (String currentReleaseDate : releaseDates) {
+                    releaseYearMonthList.add(YearMonth.parse(currentReleaseDate));
+                }
+            }
+
+            if (null == currentDate) {
+                currentDate = LocalDate.now().toString();
+            }
+
+            ProductListingCursor listingCursor = null == cursor || cursor.isBlank()
+                    ? ProductListingCursor.firstPage(pageable.getSort())
+                    : ProductListingCursor.decode(cursor);
+
+            Slice<Product> productSlice = productRepository.findProductsWithFiltersAfterCursor(
+                    platform, name, availability, minPrice, maxPrice, genres,
+                    regions, publishers, editions, languages, startingLetters,
+                    releaseYearMonthList, currentDate, listingCursor, pageable.getPageSize());
+
+            String nextCursor = productSlice.hasNext()
+                    ? listingCursor.after(productSlice.getContent().get(productSlice.getNumberOfElements() - 1)).encode()
+                    : null;
+
+            return new CursorPageResponse<>(productSlice.map(productMapper::toSliderItemDTO).getContent(), nextCursor, productSlice.hasNext());
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            log.error("Validation failed in getProductListingsByCursor for platform = {}: {}", platform, ex.getMessage());
+            throw new InvalidProductQueryException(ex.getMessage());
+        } catch (Exception ex) {
+            log.error("Database or system exception in getProductListingsByCursor for platform = {}: {}", platform, ex.getMessage());
+            throw new ProductFetchException("Could not retrieve product listings for " + platform + " due to an internal error.");
+        }
+    }
+
+    /**
+     * For get product facet counts API, same filters as getProductListings
+     *
+     * @return Total and number of products per genre, region, publisher, edition and language
+     */
+    public ProductFacetCountsDTO getProductFacetCounts(String platform, String name, List<String> availability, BigDecimal minPrice, BigDecimal maxPrice, List<String> genres, List<String> regions, List<String> publishers, List<String> editions, List<String> languages, List<String> startingLetters, List<String> releaseDates, String currentDate) {
+        try {
+            List<YearMonth> releaseYearMonthList = new ArrayList<>();
+            if (null != releaseDates && !releaseDates.isEmpty()) {
+                for (String currentReleaseDate : releaseDates) {
+                    releaseYearMonthList.add(YearMonth.parse(currentReleaseDate));
+                }
+            }
+
+            if (null == currentDate) {
+                currentDate = LocalDate.now().toString();
+            }
+
+            return productRepository.findFacetCounts(
+                    platform, name, availability, minPrice, maxPrice, genres,
+                    regions, publishers, editions, languages, startingLetters,
+                    releaseYearMonthList, currentDate);
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            log.error("Validation failed in getProductFacetCounts for platform = {}: {}", platform, ex.getMessage());
+            throw new InvalidProductQueryException(ex.getMessage());
+        } catch (Exception ex) {
+            log.error("Database or system exception in getProductFacetCounts for platform = {}: {}", platform, ex.getMessage());
+            throw new ProductFetchException("Could not retrieve product facet counts for " + platform + " due to an internal error.");
+        }
+    }
+
+    /**
+     * For get product suggestions API, served from the in-memory catalogue index only
+     *
+     * @param query    What the user has typed so far, matched against the start of names, words in names and slugs
+     * @param platform Optional, limit suggestions to this platform
+     * @param limit    Optional, max number of suggestions (default and cap of 10)
+     * @return Suggestions with the most units sold first, empty while the index is still warming up
+     */
+    public List<ProductSuggestionDTO> getProductSuggestions(String query, String platform, Integer limit) {
+        if (null == query || query.isBlank()) {
+            return List.of();
+        }
+        if (query.length() > MAX_SUGGESTION_QUERY_LENGTH) {
+            throw new InvalidProductQueryException("Query cannot be longer than " + MAX_SUGGESTION_QUERY_LENGTH + " characters");
+        }
+        if (null != platform && !PlatformEnums.isValidPlatformValue(platform)) {
+            throw new InvalidProductQueryException("Invalid platform: " + platform);
+        }
+
+        int suggestionLimit = null == limit
+                ? ProductSuggestionTrie.MAX_SUGGESTIONS
+                : Math.max(1, Math.min(limit, ProductSuggestionTrie.MAX_SUGGESTIONS));
+
+        return productCatalogueIndex.suggest(query, platform, suggestionLimit);
+    }
+
     /**
      * For get product details API
      *
@@ -268,6 +396,23 @@ public class ProductService {
         }
     }
 
+    /**
+     * Product details as the JSON body to write, built from the database only on a cache miss
+     *
+     * @param productSlug slug of product
+     * @return serialised details with their ETag
+     */
+    public ProductDetailsCacheService.CachedProductDetails getSerialisedProductDetails(String productSlug) {
+        try {
+            return productDetailsCacheService.getOrLoad(productSlug, () -> getProductDetails(productSlug));
+        } catch (ProductNotFoundException | ProductFetchException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            log.error("Exception in getSerialisedProductDetails for productSlug = {}: {}", productSlug, ex.getMessage());
+            throw new ProductFetchException("Could not retrieve product details for " + productSlug + " due to an internal error.");
+        }
+    }
+
     private ProductVariantDTO getProductVariantDTO(Product currentProduct) {
         ProductVariantDTO productVariantDTO = new ProductVariantDTO();
         productVariantDTO.setProductID(currentProduct.getId().toHexString());
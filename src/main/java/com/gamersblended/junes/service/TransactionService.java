@@ -8,15 +8,15 @@ import com.gamersblended.junes.exception.TransactionNotFoundException;
 import com.gamersblended.junes.mapper.AddressMapper;
 import com.gamersblended.junes.model.Address;
 import com.gamersblended.junes.model.Product;
+import com.gamersblended.junes.model.ProductSummary;
 import com.gamersblended.junes.model.Transaction;
 import com.gamersblended.junes.model.TransactionItem;
 import com.gamersblended.junes.repository.jpa.AddressRepository;
 import com.gamersblended.junes.repository.jpa.TransactionItemRepository;
 import com.gamersblended.junes.repository.jpa.TransactionRepository;
-import com.gamersblended.junes.repository.mongodb.ProductRepository;
+import com.gamersblended.junes.service.cache.ProductMetadataCacheService;
 import com.gamersblended.junes.util.PageableValidator;
 import lombok.extern.slf4j.Slf4j;
-import org.bson.types.ObjectId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -34,20 +34,20 @@ public class TransactionService {
     private final AddressMapper addressMapper;
     private final TransactionRepository transactionRepository;
     private final TransactionItemRepository transactionItemRepository;
-    private final ProductRepository productRepository;
+    private final ProductMetadataCacheService productMetadataCacheService;
     private final AddressRepository addressRepository;
 
     public TransactionService(PageableValidator pageableValidator,
                               AddressMapper addressMapper,
                               TransactionRepository transactionRepository,
                               TransactionItemRepository transactionItemRepository,
-                              ProductRepository productRepository,
+                              ProductMetadataCacheService productMetadataCacheService,
                               AddressRepository addressRepository) {
         this.pageableValidator = pageableValidator;
         this.addressMapper = addressMapper;
         this.transactionRepository = transactionRepository;
         this.transactionItemRepository = transactionItemRepository;
-        this.productRepository = productRepository;
+        this.productMetadataCacheService = productMetadataCacheService;
         this.addressRepository = addressRepository;
     }
 
@@ -66,7 +66,7 @@ public class TransactionService {
 
         Map<UUID, List<TransactionItem>> itemsByTransaction = getItemsByTransactionIDMap(items);
 
-        Map<String, Product> productMap = getProductsByIDMap(items, TransactionItem::getProductID);
+        Map<String, ProductSummary> productMap = getProductSummariesByIDMap(items);
 
         List<TransactionHistoryDTO> transactionHistoryDTOList = userTransactionHistory.getContent().stream()
                 .map(t -> buildTransactionHistoryDTO(t, itemsByTransaction.get(t.getTransactionID()), productMap))
@@ -75,7 +75,7 @@ public class TransactionService {
         return new PageImpl<>(transactionHistoryDTOList, pageable, userTransactionHistory.getTotalElements());
     }
 
-    private TransactionHistoryDTO buildTransactionHistoryDTO(Transaction transaction, List<TransactionItem> transactionItemList, Map<String, Product> productMap) {
+    private TransactionHistoryDTO buildTransactionHistoryDTO(Transaction transaction, List<TransactionItem> transactionItemList, Map<String, ProductSummary> productMap) {
         TransactionHistoryDTO transactionHistoryDTO = new TransactionHistoryDTO();
         transactionHistoryDTO.setOrderNumber(transaction.getOrderNumber());
         transactionHistoryDTO.setOrderDate(transaction.getOrderDate());
@@ -102,12 +102,12 @@ public class TransactionService {
 
         Map<UUID, List<TransactionItem>> itemsByTransaction = getItemsByTransactionIDMap(items);
 
-        Map<String, Product> productMap = getProductsByIDMap(items, TransactionItem::getProductID);
+        Map<String, ProductSummary> productMap = getProductSummariesByIDMap(items);
 
         return buildTransactionDetailsDTO(userID, transaction, itemsByTransaction.get(transactionID), productMap);
     }
 
-    private TransactionDetailsDTO buildTransactionDetailsDTO(UUID userID, Transaction transaction, List<TransactionItem> transactionItemList, Map<String, Product> productMap) {
+    private TransactionDetailsDTO buildTransactionDetailsDTO(UUID userID, Transaction transaction, List<TransactionItem> transactionItemList, Map<String, ProductSummary> productMap) {
         TransactionDetailsDTO transactionDetailsDTO = new TransactionDetailsDTO();
         transactionDetailsDTO.setOrderNumber(transaction.getOrderNumber());
         transactionDetailsDTO.setOrderDate(transaction.getOrderDate());
@@ -135,14 +135,14 @@ public class TransactionService {
     }
 
     // List<TransactionItem> -> List<TransactionItemDTO>
-    private List<TransactionItemDTO> getTransactionItemDTOList(List<TransactionItem> transactionItemList, Map<String, Product> productMap) {
+    private List<TransactionItemDTO> getTransactionItemDTOList(List<TransactionItem> transactionItemList, Map<String, ProductSummary> productMap) {
         List<TransactionItemDTO> transactionItemDTOList = new ArrayList<>();
 
         for (TransactionItem currentItem : transactionItemList) {
             TransactionItemDTO itemDTO = new TransactionItemDTO();
 
             // Add product metadata into current item
-            Product productMetadata = productMap.get(currentItem.getProductID());
+            ProductSummary productMetadata = productMap.get(currentItem.getProductID());
             if (null != productMetadata) {
                 itemDTO.setName(productMetadata.getName());
                 itemDTO.setSlug(productMetadata.getSlug());
@@ -170,27 +170,19 @@ public class TransactionService {
     // Map: ProductID - Product
     // Functional interface - takes in both Entity and DTO
     public <T> Map<String, Product> getProductsByIDMap(List<T> itemList, Function<T, String> productIDExtractor) {
-        // Get all product IDs from transaction item DTOs
-        Set<String> productIDList = itemList.stream()
+        return productMetadataCacheService.getProductsByID(toProductIDSet(itemList, productIDExtractor));
+    }
+
+    // Map: ProductID - ProductSummary, for order history which only displays product metadata
+    private Map<String, ProductSummary> getProductSummariesByIDMap(List<TransactionItem> itemList) {
+        return productMetadataCacheService.getSummariesByID(toProductIDSet(itemList, TransactionItem::getProductID));
+    }
+
+    // Get all product IDs from transaction item DTOs
+    private <T> Set<String> toProductIDSet(List<T> itemList, Function<T, String> productIDExtractor) {
+        return itemList.stream()
                 .map(productIDExtractor)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
-
-        // Convert String IDs to ObjectId
-        List<ObjectId> productObjectIDList = productIDList.stream()
-                .map(id -> {
-                    try {
-                        return new ObjectId(id);
-                    } catch (IllegalArgumentException ex) {
-                        log.error("Invalid ObjectId format: {}", id);
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
-                .toList();
-
-        List<Product> productList = productRepository.findByIdIn(productObjectIDList);
-        return productList.stream()
-                .collect(Collectors.toMap(product -> product.getId().toHexString(), Function.identity()));
     }
 }
@@ -0,0 +1,72 @@
+package com.gamersblended.junes.service.cache;
+
+/**
+ * Count-min sketch of recent key frequencies for TinyLFU admission, 4 rows of counters saturating at 15
+ * Every counter is halved once as many increments as 10x the cache capacity have been seen, so old popularity fades
+ * Not thread-safe, callers hold their own lock
+ */
+final class FrequencySketch {
+
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions = 0;
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+        this.table = new byte[SEEDS.length][width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * Math.max(1, capacity);
+    }
+
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        boolean isIncremented = false;
+
+        for (int row = 0; row < SEEDS.length; row++) {
+            int index = indexOf(hash, row);
+            if (table[row][index] < MAX_COUNT) {
+                table[row][index]++;
+                isIncremented = true;
+            }
+        }
+
+        if (isIncremented && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            frequency = Math.min(frequency, table[row][indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (byte[] row : table) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (byte) (row[i] >>> 1);
+            }
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & mask;
+    }
+
+    // Weak String hashes differ mostly in low bits, mix them into the high bits too
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
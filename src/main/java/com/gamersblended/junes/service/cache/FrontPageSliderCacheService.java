@@ -0,0 +1,149 @@
+package com.gamersblended.junes.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gamersblended.junes.dto.ProductSliderItemDTO;
+import com.gamersblended.junes.mapper.ProductMapper;
+import com.gamersblended.junes.model.ProductSummary;
+import com.gamersblended.junes.repository.mongodb.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Front page sliders ranked ahead of time, so pages are served from Redis without touching Mongo
+ * Each slider is a Redis list of slider item JSON in rank order, plus the full match count for paging
+ * Keyed by reference date, as the date decides which products are preorders or best sellers
+ */
+@Slf4j
+@Service
+public class FrontPageSliderCacheService {
+
+    public static final String PREORDERS = "preorders";
+    public static final String BEST_SELLERS = "best-sellers";
+
+    private static final String KEY_PREFIX = "frontpage:";
+    private static final Duration KEY_TTL = Duration.ofDays(2);
+
+    // KEYS[1] = staging list, KEYS[2] = live list, KEYS[3] = total, ARGV[1] = total, ARGV[2] = ttl seconds
+    // Swaps in the list and its total together, so readers never pair a new list with an old total
+    private static final RedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+              redis.call('RENAME', KEYS[1], KEYS[2])
+            else
+              redis.call('DEL', KEYS[2])
+            end
+            redis.call('SET', KEYS[3], ARGV[1], 'EX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+
+    @Value("${frontpage.sliders.max-items:100}")
+    private int maxItems;
+
+    public FrontPageSliderCacheService(RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper, ProductRepository productRepository, ProductMapper productMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+    }
+
+    // Hash tag keeps the list, its total and its staging list in one cluster slot for PUBLISH_SCRIPT
+    public String buildKey(String slider, LocalDate currentDate) {
+        return KEY_PREFIX + "{" + slider + ":" + currentDate + "}";
+    }
+
+    /**
+     * Ranks both sliders for currentDate from Mongo and replaces what is in Redis
+     *
+     * @param currentDate reference date of the sliders
+     */
+    public void materialise(LocalDate currentDate) {
+        PageRequest preorderRequest = PageRequest.of(0, maxItems, Sort.by(Sort.Direction.ASC, "release_date"));
+        store(PREORDERS, currentDate, productRepository.findPreOrderSummariesAfterDateWithPagination(currentDate, preorderRequest));
+
+        PageRequest bestSellerRequest = PageRequest.of(0, maxItems, Sort.by(Sort.Direction.DESC, "units_sold"));
+        store(BEST_SELLERS, currentDate, productRepository.findBestSellerSummariesBeforeDateWithPagination(currentDate, bestSellerRequest));
+    }
+
+    /**
+     * @param slider      PREORDERS or BEST_SELLERS
+     * @param currentDate reference date of the slider
+     * @param pageRequest page number and size
+     * @return page from Redis, empty if the slider is not materialised for this date or the page lies past the ranked items
+     */
+    public Optional<Page<ProductSliderItemDTO>> getPage(String slider, LocalDate currentDate, PageRequest pageRequest) {
+        String key = buildKey(slider, currentDate);
+
+        try {
+            String totalString = redisTemplate.opsForValue().get(key + ":total");
+            if (null == totalString) {
+                log.info("[FrontPageSliderCache] MISS for key = {}", key);
+                return Optional.empty();
+            }
+
+            long total = Long.parseLong(totalString);
+            long start = pageRequest.getOffset();
+            long end = start + pageRequest.getPageSize() - 1;
+
+            // Past the ranked items but not past the matches: only Mongo has those
+            if (end >= maxItems && start < total) {
+                log.info("[FrontPageSliderCache] Page {} of key = {} is beyond the {} ranked items", pageRequest.getPageNumber(), key, maxItems);
+                return Optional.empty();
+            }
+
+            List<String> itemJsonList = redisTemplate.opsForList().range(key, start, end);
+            List<ProductSliderItemDTO> content = new ArrayList<>();
+            if (null != itemJsonList) {
+                for (String itemJson : itemJsonList) {
+                    content.add(objectMapper.readValue(itemJson, ProductSliderItemDTO.class));
+                }
+            }
+
+            log.info("[FrontPageSliderCache] HIT for key = {}, page = {}", key, pageRequest.getPageNumber());
+            return Optional.of(new PageImpl<>(content, pageRequest, total));
+        } catch (Exception ex) {
+            log.error("[FrontPageSliderCache] Read failed for key = {}: {}", key, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void store(String slider, LocalDate currentDate, Page<ProductSummary> rankedPage) {
+        String key = buildKey(slider, currentDate);
+        String stagingKey = key + ":staging";
+
+        try {
+            List<String> itemJsonList = new ArrayList<>();
+            for (ProductSummary productSummary : rankedPage.getContent()) {
+                itemJsonList.add(objectMapper.writeValueAsString(productMapper.summaryToSliderItemDTO(productSummary)));
+            }
+
+            // Build aside and rename over the live key, readers never see a half-written list
+            // TTL is set before the rename and carried over by it, so the live key never exists without one
+            redisTemplate.delete(stagingKey);
+            if (!itemJsonList.isEmpty()) {
+                redisTemplate.opsForList().rightPushAll(stagingKey, itemJsonList);
+                redisTemplate.expire(stagingKey, KEY_TTL);
+            }
+            redisTemplate.execute(PUBLISH_SCRIPT, List.of(stagingKey, key, key + ":total"),
+                    String.valueOf(rankedPage.getTotalElements()), String.valueOf(KEY_TTL.getSeconds()));
+
+            log.info("[FrontPageSliderCache] Stored {} of {} ranked items for key = {}", itemJsonList.size(), rankedPage.getTotalElements(), key);
+        } catch (Exception ex) {
+            log.error("[FrontPageSliderCache] Write failed for key = {}: {}", key, ex.getMessage());
+        }
+    }
+}
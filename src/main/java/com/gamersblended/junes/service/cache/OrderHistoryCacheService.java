@@ -1,83 +1,60 @@
 package com.gamersblended.junes.service.cache;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gamersblended.junes.dto.recommender.ProductSignalDTO;
+import com.gamersblended.junes.repository.CartKeys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * Order history signals per user, in a short-lived L1 on each node in front of Redis
+ * Evicting after an order drops the entry from L2 and from L1 on every node
+ */
 @Slf4j
 @Service
 public class OrderHistoryCacheService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
-
     private static final TypeReference<List<ProductSignalDTO>> TYPE_REF = new TypeReference<>() {
     };
     private static final String KEY_PREFIX = "order-history:";
 
-    @Value("${recommender.cache.ttl-minutes:10}")
-    private long cacheTtlMinutes;
+    private final TwoTierCache<List<ProductSignalDTO>> cache;
 
     @Autowired
-    public OrderHistoryCacheService(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper) {
-        this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+    public OrderHistoryCacheService(TwoTierCacheManager twoTierCacheManager,
+                                    @Value("${recommender.cache.ttl-minutes:10}") long cacheTtlMinutes,
+                                    @Value("${order-history.cache.l1-max-entries:10000}") int l1MaxEntries,
+                                    @Value("${order-history.cache.l1-ttl-seconds:30}") long l1TtlSeconds) {
+        this.cache = twoTierCacheManager.create("order-history", TYPE_REF, l1MaxEntries,
+                Duration.ofSeconds(l1TtlSeconds), Duration.ofMinutes(cacheTtlMinutes));
     }
 
+    // Tagged like the user's cart keys, so both land in the same cluster slot
     public String buildKey(UUID userID) {
-        return KEY_PREFIX + userID.toString();
+        return CartKeys.tagged(KEY_PREFIX, userID);
     }
 
     public Optional<List<ProductSignalDTO>> get(UUID userID) {
-        String key = buildKey(userID);
-
-        try {
-            String jsonString = (String) redisTemplate.opsForValue().get(key);
-
-            if (null == jsonString) {
-                log.info("[OrderHistoryCache] MISS for userID = {}", userID);
-                return Optional.empty();
-            }
-
-            List<ProductSignalDTO> cached = objectMapper.readValue(jsonString, TYPE_REF);
-            log.info("[OrderHistoryCache] HIT for userID = {}", userID);
-            return Optional.of(cached);
-        } catch (Exception ex) {
-            log.error("[OrderHistoryCache] Read failed for userID = {}: {}", userID, ex.getMessage());
-            return Optional.empty();
-        }
+        Optional<List<ProductSignalDTO>> cached = cache.get(buildKey(userID));
+        log.info("[OrderHistoryCache] {} for userID = {}", cached.isPresent() ? "HIT" : "MISS", userID);
+        return cached;
     }
 
     public void put(UUID userID, List<ProductSignalDTO> productSignalDTOList) {
-        String key = buildKey(userID);
-
-        try {
-            String json = objectMapper.writeValueAsString(productSignalDTOList);
-            redisTemplate.opsForValue().set(key, json, cacheTtlMinutes, TimeUnit.MINUTES);
-            log.info("[OrderHistoryCache] Stored for userID = {} TTL = {}min", userID, cacheTtlMinutes);
-        } catch (Exception ex) {
-            log.error("[OrderHistoryCache] Write failed for userID = {}: {}", userID, ex.getMessage());
-        }
+        cache.put(buildKey(userID), productSignalDTOList);
+        log.info("[OrderHistoryCache] Stored for userID = {}", userID);
     }
 
     public void evict(UUID userID) {
         String key = buildKey(userID);
-
-        try {
-            Boolean isDeleted = redisTemplate.delete(key);
-            log.info("[OrderHistoryCache] Evicted key = {} success = {}", key, isDeleted);
-        } catch (Exception ex) {
-            log.error("[OrderHistoryCache] Eviction failed for userID = {}: {}", userID, ex.getMessage());
-        }
+        boolean isDeleted = cache.evict(key);
+        log.info("[OrderHistoryCache] Evicted key = {} success = {}", key, isDeleted);
     }
 }
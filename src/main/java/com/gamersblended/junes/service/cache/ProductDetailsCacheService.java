@@ -0,0 +1,217 @@
+package com.gamersblended.junes.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gamersblended.junes.dto.ProductDTO;
+import com.gamersblended.junes.dto.ProductDetailsDTO;
+import com.gamersblended.junes.dto.ProductVariantDTO;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Product details responses by slug, kept as the JSON bytes written to the client
+ * Each variant is serialised on its own, so a stock change re-serialises only that variant and splices the body back together
+ * The ETag is a digest of the body, so every node hands out the same ETag for the same content
+ */
+@Slf4j
+@Service
+public class ProductDetailsCacheService {
+
+    private static final byte[] BODY_START = "{\"productDTO\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] VARIANT_LIST_START = ",\"productVariantDTOList\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BODY_END = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final SizeBoundedTtlCache<DetailsEntry> detailsCache;
+    private final long ttlMillis;
+
+    // productID -> slug of the response it appears in, entries may outlive their response and are then ignored
+    private final Map<String, String> slugByProductID = new ConcurrentHashMap<>();
+
+    // Bumped on every stock change, a load that raced one is served but not cached
+    private final AtomicLong stockVersion = new AtomicLong();
+
+    public ProductDetailsCacheService(ObjectMapper objectMapper,
+                                      @Value("${product.details-cache.max-bytes:33554432}") long maxBytes,
+                                      @Value("${product.details-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+        this.detailsCache = new SizeBoundedTtlCache<>(maxBytes, Duration.ofSeconds(ttlSeconds), entry -> entry.body.length);
+    }
+
+    /**
+     * @param productSlug slug of product
+     * @param loader      builds the details from the database on a miss, its exceptions are passed on
+     * @return serialised details with their ETag
+     */
+    public CachedProductDetails getOrLoad(String productSlug, Supplier<ProductDetailsDTO> loader) {
+        Optional<DetailsEntry> cached = detailsCache.get(productSlug);
+        if (cached.isPresent()) {
+            return cached.get().response;
+        }
+
+        long versionBeforeLoad = stockVersion.get();
+        ProductDetailsDTO productDetailsDTO = loader.get();
+        DetailsEntry entry = serialise(productDetailsDTO, System.currentTimeMillis());
+
+        // Same lock as updateStock, so no stock change slips in between the check and the put
+        synchronized (this) {
+            if (versionBeforeLoad == stockVersion.get()) {
+                detailsCache.put(productSlug, entry);
+                for (ProductVariantDTO variantDTO : productDetailsDTO.getProductVariantDTOList()) {
+                    slugByProductID.put(variantDTO.getProductID(), productSlug);
+                }
+            } else {
+                log.info("[ProductDetailsCache] Stock changed while loading slug = {}, not caching", productSlug);
+            }
+        }
+        return entry.response;
+    }
+
+    /**
+     * Patches the stock of one variant in place, other variants keep their serialised bytes
+     *
+     * @param productID hex _id of the variant
+     * @param stock     current stock of the variant
+     */
+    public synchronized void updateStock(String productID, Integer stock) {
+        stockVersion.incrementAndGet();
+
+        String productSlug = slugByProductID.get(productID);
+        if (null == productSlug) {
+            return;
+        }
+
+        Optional<DetailsEntry> cached = detailsCache.get(productSlug);
+        if (cached.isEmpty()) {
+            slugByProductID.remove(productID);
+            return;
+        }
+
+        DetailsEntry entry = cached.get();
+
+        // Patching keeps the entry alive, stop once it is due so other catalogue edits still show up within the TTL
+        if (System.currentTimeMillis() - entry.loadedAt >= ttlMillis) {
+            detailsCache.invalidate(productSlug);
+            return;
+        }
+
+        try {
+            detailsCache.put(productSlug, entry.withStock(productID, stock));
+            log.info("[ProductDetailsCache] Patched stock of product {} in slug = {}", productID, productSlug);
+        } catch (Exception ex) {
+            log.error("[ProductDetailsCache] Patch failed for product {}, dropping slug = {}: {}", productID, productSlug, ex.getMessage());
+            detailsCache.invalidate(productSlug);
+        }
+    }
+
+    public synchronized void invalidate(String productSlug) {
+        stockVersion.incrementAndGet();
+        detailsCache.invalidate(productSlug);
+    }
+
+    private DetailsEntry serialise(ProductDetailsDTO productDetailsDTO, long loadedAt) {
+        try {
+            List<ProductVariantDTO> variantDTOList = productDetailsDTO.getProductVariantDTOList();
+            byte[][] variantJson = new byte[variantDTOList.size()][];
+            for (int i = 0; i < variantDTOList.size(); i++) {
+                variantJson[i] = objectMapper.writeValueAsBytes(variantDTOList.get(i));
+            }
+
+            return new DetailsEntry(productDetailsDTO, objectMapper.writeValueAsBytes(productDetailsDTO.getProductDTO()), variantJson, loadedAt);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialise product details: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Response body ready to write, with the ETag of its content
+     */
+    @Getter
+    public static final class CachedProductDetails {
+        private final byte[] body;
+        private final String eTag;
+
+        private CachedProductDetails(byte[] body) {
+            this.body = body;
+            this.eTag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        }
+    }
+
+    /**
+     * Immutable once built, a patch builds a new entry that shares the untouched segments
+     * The DTOs are only read by updateStock, which holds the service lock
+     */
+    private final class DetailsEntry {
+        private final ProductDetailsDTO productDetailsDTO;
+        private final byte[] productJson;
+        private final byte[][] variantJson;
+        private final long loadedAt;
+        private final byte[] body;
+        private final CachedProductDetails response;
+
+        private DetailsEntry(ProductDetailsDTO productDetailsDTO, byte[] productJson, byte[][] variantJson, long loadedAt) {
+            this.productDetailsDTO = productDetailsDTO;
+            this.productJson = productJson;
+            this.variantJson = variantJson;
+            this.loadedAt = loadedAt;
+            this.body = assemble(productJson, variantJson);
+            this.response = new CachedProductDetails(body);
+        }
+
+        private DetailsEntry withStock(String productID, Integer stock) throws JsonProcessingException {
+            byte[] patchedProductJson = productJson;
+            ProductDTO productDTO = productDetailsDTO.getProductDTO();
+
+            // The product part is the first variant, so it carries that variant's stock too
+            if (productID.equals(productDTO.getId())) {
+                productDTO.setStock(stock);
+                patchedProductJson = objectMapper.writeValueAsBytes(productDTO);
+            }
+
+            byte[][] patchedVariantJson = variantJson.clone();
+            List<ProductVariantDTO> variantDTOList = productDetailsDTO.getProductVariantDTOList();
+            for (int i = 0; i < variantDTOList.size(); i++) {
+                if (productID.equals(variantDTOList.get(i).getProductID())) {
+                    variantDTOList.get(i).setStock(stock);
+                    patchedVariantJson[i] = objectMapper.writeValueAsBytes(variantDTOList.get(i));
+                }
+            }
+
+            return new DetailsEntry(productDetailsDTO, patchedProductJson, patchedVariantJson, loadedAt);
+        }
+    }
+
+    private static byte[] assemble(byte[] productJson, byte[][] variantJson) {
+        int length = BODY_START.length + productJson.length + VARIANT_LIST_START.length + BODY_END.length + Math.max(0, variantJson.length - 1);
+        for (byte[] json : variantJson) {
+            length += json.length;
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length);
+        outputStream.writeBytes(BODY_START);
+        outputStream.writeBytes(productJson);
+        outputStream.writeBytes(VARIANT_LIST_START);
+        for (int i = 0; i < variantJson.length; i++) {
+            if (i > 0) {
+                outputStream.write(',');
+            }
+            outputStream.writeBytes(variantJson[i]);
+        }
+        outputStream.writeBytes(BODY_END);
+        return outputStream.toByteArray();
+    }
+}
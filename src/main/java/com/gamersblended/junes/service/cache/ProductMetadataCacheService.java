@@ -0,0 +1,135 @@
+package com.gamersblended.junes.service.cache;
+
+import com.gamersblended.junes.model.Product;
+import com.gamersblended.junes.model.ProductSummary;
+import com.gamersblended.junes.repository.mongodb.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Near-cache in front of ProductRepository lookups by _id
+ * Batch lookups only go to Mongo for the IDs not already cached
+ * Entries are dropped on InventoryChangedEvent and local stock writes, other catalogue edits are bounded by the TTL
+ */
+@Slf4j
+@Service
+public class ProductMetadataCacheService {
+
+    // Object headers, references and fixed-size fields of a product, on top of its strings
+    private static final long PRODUCT_BASE_BYTES = 512;
+    private static final long SUMMARY_BASE_BYTES = 192;
+
+    private final ProductRepository productRepository;
+    private final SizeBoundedTtlCache<Product> productCache;
+    private final SizeBoundedTtlCache<ProductSummary> summaryCache;
+
+    public ProductMetadataCacheService(ProductRepository productRepository,
+                                       @Value("${product.metadata-cache.max-bytes:16777216}") long maxBytes,
+                                       @Value("${product.metadata-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.productRepository = productRepository;
+
+        // Summaries are a fraction of the size of full products, a quarter of the budget holds far more of them
+        this.productCache = new SizeBoundedTtlCache<>(maxBytes - maxBytes / 4, Duration.ofSeconds(ttlSeconds), ProductMetadataCacheService::estimateProductBytes);
+        this.summaryCache = new SizeBoundedTtlCache<>(maxBytes / 4, Duration.ofSeconds(ttlSeconds), ProductMetadataCacheService::estimateSummaryBytes);
+    }
+
+    /**
+     * @param productID hex _id of product
+     * @return product, empty if it does not exist
+     */
+    public Optional<Product> getProduct(String productID) {
+        String hexID = new ObjectId(productID).toHexString(); // Invalid IDs fail here, as they did with findById
+        return Optional.ofNullable(getProductsByID(List.of(hexID)).get(hexID));
+    }
+
+    /**
+     * @param productIDs hex _ids, invalid ones are logged and skipped
+     * @return map of productID to product, IDs not found are left out
+     */
+    public Map<String, Product> getProductsByID(Collection<String> productIDs) {
+        return getAll(productIDs, productCache, productRepository::findByIdIn, product -> product.getId().toHexString());
+    }
+
+    /**
+     * @param productIDs hex _ids, invalid ones are logged and skipped
+     * @return map of productID to product summary, IDs not found are left out
+     */
+    public Map<String, ProductSummary> getSummariesByID(Collection<String> productIDs) {
+        return getAll(productIDs, summaryCache, productRepository::findSummariesByIdIn, summary -> summary.getId().toHexString());
+    }
+
+    public void invalidate(String productID) {
+        productCache.invalidate(productID);
+        summaryCache.invalidate(productID);
+    }
+
+    private <V> Map<String, V> getAll(Collection<String> productIDs,
+                                      SizeBoundedTtlCache<V> cache,
+                                      Function<List<ObjectId>, List<V>> loader,
+                                      Function<V, String> idExtractor) {
+        Set<String> productIDSet = new HashSet<>(productIDs);
+        Map<String, V> found = cache.getAll(productIDSet);
+
+        List<ObjectId> missingIDList = productIDSet.stream()
+                .filter(id -> !found.containsKey(id))
+                .map(id -> {
+                    try {
+                        return new ObjectId(id);
+                    } catch (IllegalArgumentException ex) {
+                        log.error("Invalid ObjectId format: {}", id);
+                        return null;
+                    }
+                })
+                .filter(Objects::nonNull)
+                .toList();
+
+        if (!missingIDList.isEmpty()) {
+            for (V loaded : loader.apply(missingIDList)) {
+                String productID = idExtractor.apply(loaded);
+                cache.put(productID, loaded);
+                found.put(productID, loaded);
+            }
+        }
+
+        log.info("[ProductMetadataCache] {} requested, {} from cache, {} from database", productIDSet.size(),
+                productIDSet.size() - missingIDList.size(), missingIDList.size());
+        return found;
+    }
+
+    private static long estimateProductBytes(Product product) {
+        long bytes = PRODUCT_BASE_BYTES
+                + stringBytes(product.getName()) + stringBytes(product.getSlug())
+                + stringBytes(product.getDescription()) + stringBytes(product.getPlatform())
+                + stringBytes(product.getRegion()) + stringBytes(product.getEdition())
+                + stringBytes(product.getPublisher()) + stringBytes(product.getProductImageUrl())
+                + stringBytes(product.getEditionNotes());
+
+        for (String imageUrl : product.getImageUrlList()) {
+            bytes += stringBytes(imageUrl);
+        }
+        for (Set<String> valueSet : List.of(product.getSeries(), product.getGenres(), product.getLanguages(), product.getNumberOfPlayers())) {
+            for (String value : valueSet) {
+                bytes += stringBytes(value);
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimateSummaryBytes(ProductSummary summary) {
+        return SUMMARY_BASE_BYTES
+                + stringBytes(summary.getName()) + stringBytes(summary.getSlug())
+                + stringBytes(summary.getPlatform()) + stringBytes(summary.getRegion())
+                + stringBytes(summary.getEdition()) + stringBytes(summary.getProductImageUrl());
+    }
+
+    // Header plus one byte per char (compact Latin-1 strings)
+    private static long stringBytes(String value) {
+        return null == value ? 0 : 40 + value.length();
+    }
+}
@@ -0,0 +1,169 @@
+package com.gamersblended.junes.service.cache;
+
+import com.gamersblended.junes.constant.SignalTypeEnums;
+import com.gamersblended.junes.dto.recommender.ProductSignalDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Cache keys of recommender responses, picked with recommender.cache.key-mode
+ * exact: MD5 of all product IDs, one more viewed product is a new key
+ * top-k: MD5 of the k highest-weight products, by signal weight then most recent, so extra low-weight browsing keeps the key
+ * minhash: MinHash of the product IDs, sets with Jaccard similarity J share a key with probability J^rows,
+ * rows is derived from similarity-threshold so sets exactly at the threshold share a key half the time
+ * Every mode hashes only product IDs, so keys are the same on every node
+ */
+@Slf4j
+@Component
+public class RecommendationCacheKeyBuilder {
+
+    public static final String EXACT = "exact";
+    public static final String TOP_K = "top-k";
+    public static final String MINHASH = "minhash";
+
+    private static final String KEY_PREFIX = "recommendations:";
+
+    // Recent signals first among those of the same weight, product ID last so ties give the same order on every node
+    private static final Comparator<ProductSignalDTO> HIGHEST_WEIGHT_FIRST = Comparator
+            .comparingInt((ProductSignalDTO signal) -> weightOf(signal.getType())).reversed()
+            .thenComparing(ProductSignalDTO::getTimestamp, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(ProductSignalDTO::getProductID);
+
+    private final String keyMode;
+    private final int topK;
+    private final long[] minHashSeeds;
+
+    public RecommendationCacheKeyBuilder(@Value("${recommender.cache.key-mode:exact}") String keyMode,
+                                         @Value("${recommender.cache.top-k:10}") int topK,
+                                         @Value("${recommender.cache.similarity-threshold:0.8}") double similarityThreshold) {
+        this.topK = Math.max(1, topK);
+
+        String mode = keyMode.trim().toLowerCase();
+        if (!List.of(EXACT, TOP_K, MINHASH).contains(mode)) {
+            throw new IllegalArgumentException("Unknown recommender.cache.key-mode: " + keyMode + ", expected exact, top-k or minhash");
+        }
+
+        // A threshold of 1 only matches identical sets, which exact does without the hashing
+        if (MINHASH.equals(mode) && similarityThreshold >= 1) {
+            log.warn("[RecommendationCacheKey] similarity-threshold = {} only matches identical sets, using exact keys", similarityThreshold);
+            mode = EXACT;
+        }
+        this.keyMode = mode;
+        this.minHashSeeds = MINHASH.equals(mode) ? seeds(rowsFor(similarityThreshold)) : new long[0];
+
+        log.info("[RecommendationCacheKey] key-mode = {}{}", this.keyMode,
+                MINHASH.equals(this.keyMode) ? ", " + minHashSeeds.length + " MinHash rows for threshold " + similarityThreshold : "");
+    }
+
+    public String getKeyMode() {
+        return keyMode;
+    }
+
+    public String buildKey(List<ProductSignalDTO> signalDTOList) {
+        if (null == signalDTOList || signalDTOList.isEmpty()) {
+            return KEY_PREFIX + "empty";
+        }
+
+        return switch (keyMode) {
+            case TOP_K -> KEY_PREFIX + "top" + topK + ":" + md5OfSorted(signalDTOList.stream()
+                    .filter(signal -> null != signal.getProductID())
+                    .sorted(HIGHEST_WEIGHT_FIRST)
+                    .map(ProductSignalDTO::getProductID)
+                    .distinct()
+                    .limit(topK)
+                    .toList());
+            case MINHASH -> KEY_PREFIX + "mh" + minHashSeeds.length + ":" + minHash(signalDTOList);
+            default -> KEY_PREFIX + md5OfSorted(signalDTOList.stream()
+                    .map(ProductSignalDTO::getProductID)
+                    .filter(Objects::nonNull)
+                    .toList());
+        };
+    }
+
+    private static String md5OfSorted(List<String> productIDList) {
+        String sortedIDs = productIDList.stream()
+                .sorted() // order-independent
+                .collect(Collectors.joining(","));
+
+        // MD5 for fixed-length, collision-resistant strings
+        return DigestUtils.md5DigestAsHex(sortedIDs.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String minHash(List<ProductSignalDTO> signalDTOList) {
+        long[] minimums = new long[minHashSeeds.length];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+
+        for (ProductSignalDTO signal : signalDTOList) {
+            if (null == signal.getProductID()) {
+                continue;
+            }
+
+            long productHash = fnv1a(signal.getProductID());
+            for (int i = 0; i < minHashSeeds.length; i++) {
+                minimums[i] = Math.min(minimums[i], mix(productHash ^ minHashSeeds[i]));
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(minimums.length * Long.BYTES);
+        for (long minimum : minimums) {
+            buffer.putLong(minimum);
+        }
+        return DigestUtils.md5DigestAsHex(buffer.array());
+    }
+
+    /**
+     * @return rows r with threshold^r closest to 1/2, at least 1
+     */
+    private static int rowsFor(double similarityThreshold) {
+        if (similarityThreshold <= 0) {
+            return 1;
+        }
+        return (int) Math.max(1, Math.round(Math.log(0.5) / Math.log(similarityThreshold)));
+    }
+
+    // Fixed sequence, every node must hash with the same functions
+    private static long[] seeds(int count) {
+        long[] seeds = new long[count];
+        long state = 0x5DEECE66DL;
+        for (int i = 0; i < count; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            seeds[i] = mix(state);
+        }
+        return seeds;
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static int weightOf(String type) {
+        try {
+            return SignalTypeEnums.valueOf(type).getWeight();
+        } catch (Exception ex) {
+            return 0;
+        }
+    }
+}
@@ -1,82 +1,241 @@
 package com.gamersblended.junes.service.cache;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.gamersblended.junes.dto.recommender.ProductSignalDTO;
 import com.gamersblended.junes.dto.recommender.RecommendationResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Redis cache of recommender responses, keyed by the signal set as built by RecommendationCacheKeyBuilder
+ * Stale-while-revalidate: entries are kept for stale-minutes past their TTL, a stale hit is served at once while one refresh runs
+ * in the background, guarded by a Redis lock so only one node refreshes a key
+ * Concurrent misses of the same key on this node share one recommender call
+ * Fresh entries are also kept in a short-lived L1 on each node, stale ones never are so they keep going through the refresh path
+ */
 @Slf4j
 @Service
 public class RecommendationCacheService {
 
-    private final RedisTemplate<String, RecommendationResponseDTO> recommendationRedisTemplate;
+    private final ReactiveRedisTemplate<String, RecommendationResponseDTO> reactiveRecommendationRedisTemplate;
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    private static final TypeReference<RecommendationResponseDTO> TYPE_REF = new TypeReference<>() {
+    };
+    private static final String LOCK_SUFFIX = ":refresh-lock";
+
+    // Identifies this node as lock owner in Redis, for debugging only
+    private final String nodeID = UUID.randomUUID().toString();
+
+    // Key -> recommender call in progress on this node
+    private final Map<String, CompletableFuture<RecommendationResponseDTO>> inFlightLoadMap = new ConcurrentHashMap<>();
+    private final Set<String> refreshingKeySet = ConcurrentHashMap.newKeySet();
 
-    private static final String KEY_PREFIX = "recommendations:";
+    // 0 turns stale-while-revalidate off, entries then simply expire after the TTL
+    @Value("${recommender.cache.stale-minutes:30}")
+    private long staleMinutes;
 
-    @Value("${recommender.cache.ttl-minutes:10}")
-    private long cacheTtlMinutes;
+    @Value("${recommender.cache.refresh-lock-seconds:10}")
+    private long refreshLockSeconds;
+
+    private final long cacheTtlMinutes;
+
+    // L2 is read and written reactively here, only the L1 half of the two-tier cache is used
+    private final TwoTierCache<RecommendationResponseDTO> twoTierCache;
+    private final RecommendationCacheKeyBuilder recommendationCacheKeyBuilder;
+
+    // Tagged with the key mode, to compare hit rates of exact and approximate keys
+    private final Counter hitCounter;
+    private final Counter staleHitCounter;
+    private final Counter missCounter;
 
     @Autowired
-    public RecommendationCacheService(RedisTemplate<String, RecommendationResponseDTO> recommendationRedisTemplate) {
-        this.recommendationRedisTemplate = recommendationRedisTemplate;
+    public RecommendationCacheService(ReactiveRedisTemplate<String, RecommendationResponseDTO> reactiveRecommendationRedisTemplate,
+                                      ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                      TwoTierCacheManager twoTierCacheManager,
+                                      RecommendationCacheKeyBuilder recommendationCacheKeyBuilder,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${recommender.cache.ttl-minutes:10}") long cacheTtlMinutes,
+                                      @Value("${recommender.cache.l1-max-entries:2000}") int l1MaxEntries,
+                                      @Value("${recommender.cache.l1-ttl-seconds:30}") long l1TtlSeconds) {
+        this.reactiveRecommendationRedisTemplate = reactiveRecommendationRedisTemplate;
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.cacheTtlMinutes = cacheTtlMinutes;
+        this.twoTierCache = twoTierCacheManager.create("recommendations", TYPE_REF, l1MaxEntries, Duration.ofSeconds(l1TtlSeconds), Duration.ofMinutes(cacheTtlMinutes));
+        this.recommendationCacheKeyBuilder = recommendationCacheKeyBuilder;
+
+        String keyMode = recommendationCacheKeyBuilder.getKeyMode();
+        this.hitCounter = meterRegistry.counter("recommendation.cache.lookups", "key_mode", keyMode, "result", "hit");
+        this.staleHitCounter = meterRegistry.counter("recommendation.cache.lookups", "key_mode", keyMode, "result", "stale_hit");
+        this.missCounter = meterRegistry.counter("recommendation.cache.lookups", "key_mode", keyMode, "result", "miss");
+        Gauge.builder("recommendation.cache.hit_ratio", this, RecommendationCacheService::hitRatio)
+                .tag("key_mode", keyMode)
+                .register(meterRegistry);
     }
 
     public String buildKey(List<ProductSignalDTO> signalDTOList) {
-        if (null == signalDTOList || signalDTOList.isEmpty()) {
-            return KEY_PREFIX + "empty";
-        }
+        String key = recommendationCacheKeyBuilder.buildKey(signalDTOList);
+        log.info("[RecommendationCache] {} signals -> key = {}", null == signalDTOList ? 0 : signalDTOList.size(), key);
+        return key;
+    }
 
-        String sortedIDs = signalDTOList.stream()
-                .map(ProductSignalDTO::getProductID)
-                .filter(Objects::nonNull)
-                .sorted() // order-independent
-                .collect(Collectors.joining(","));
+    /**
+     * @param productSignalDTOList signals, the cache key
+     * @param loader               calls the recommender, only responses with products are cached
+     * @return cached response, fresh or stale, else the loaded one, empty if the loader gives nothing
+     */
+    public Mono<RecommendationResponseDTO> getOrLoad(List<ProductSignalDTO> productSignalDTOList, Supplier<Mono<RecommendationResponseDTO>> loader) {
+        String key = buildKey(productSignalDTOList);
 
-        // MD5 for fixed-length, collision-resistant strings
-        String hash = DigestUtils.md5DigestAsHex(sortedIDs.getBytes(StandardCharsets.UTF_8));
+        Optional<RecommendationResponseDTO> localResponse = twoTierCache.getLocal(key);
+        if (localResponse.isPresent()) {
+            log.info("[RecommendationCache] L1 HIT for key = {}", key);
+            hitCounter.increment();
+            return Mono.just(localResponse.get());
+        }
 
-        log.info("[RecommendationCache] signals = {} -> key = {}{}", sortedIDs, KEY_PREFIX, hash);
-        return KEY_PREFIX + hash;
+        return lookup(key)
+                .map(cached -> {
+                    twoTierCache.recordL2(true);
+                    if (cached.isStale()) {
+                        log.info("[RecommendationCache] STALE HIT for key = {}", key);
+                        staleHitCounter.increment();
+                        refreshInBackground(key, loader);
+                    } else {
+                        log.info("[RecommendationCache] HIT for key = {}", key);
+                        hitCounter.increment();
+                        twoTierCache.putLocal(key, cached.getResponseDTO());
+                    }
+                    return cached.getResponseDTO();
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.info("[RecommendationCache] MISS for key = {}", key);
+                    twoTierCache.recordL2(false);
+                    missCounter.increment();
+                    return loadCoalesced(key, loader);
+                }));
     }
 
-    public Optional<RecommendationResponseDTO> get(List<ProductSignalDTO> productSignalDTOList) {
-        String key = buildKey(productSignalDTOList);
+    // Empty on a miss or if Redis fails
+    private Mono<CachedRecommendation> lookup(String key) {
+        Duration staleWindow = Duration.ofMinutes(staleMinutes);
+
+        return Mono.zip(
+                        reactiveRecommendationRedisTemplate.opsForValue().get(key),
+                        reactiveRecommendationRedisTemplate.getExpire(key).defaultIfEmpty(Duration.ZERO))
+                .map(valueAndTtl -> new CachedRecommendation(valueAndTtl.getT1(),
+                        staleMinutes > 0 && valueAndTtl.getT2().compareTo(staleWindow) <= 0))
+                .onErrorResume(ex -> {
+                    log.error("[RecommendationCache] Failed to read from Redis for key = {}: {}", key, ex.getMessage());
+                    return Mono.empty();
+                });
+    }
 
-        try {
-            RecommendationResponseDTO cached = recommendationRedisTemplate.opsForValue().get(key);
+    // Callers of the same key share one load, which runs to the end even if they give up waiting
+    private Mono<RecommendationResponseDTO> loadCoalesced(String key, Supplier<Mono<RecommendationResponseDTO>> loader) {
+        return Mono.defer(() -> {
+            CompletableFuture<RecommendationResponseDTO> newLoad = new CompletableFuture<>();
+            CompletableFuture<RecommendationResponseDTO> inFlightLoad = inFlightLoadMap.putIfAbsent(key, newLoad);
 
-            if (null != cached) {
-                log.info("[RecommendationCache] HIT for key = {}", key);
-                return Optional.of(cached);
+            if (null != inFlightLoad) {
+                log.info("[RecommendationCache] Joining load in flight for key = {}", key);
+                return Mono.fromFuture(inFlightLoad, true);
             }
 
-            log.info("[RecommendationCache] MISS for key = {}", key);
-            return Optional.empty();
-        } catch (Exception ex) {
-            log.error("[RecommendationCache] Failed to read from Redis for key = {}: {}", key, ex.getMessage());
-            return Optional.empty();
+            // Deferred, so a loader that throws still completes newLoad and clears the map entry
+            Mono.defer(loader)
+                    .flatMap(responseDTO -> put(key, responseDTO).thenReturn(responseDTO))
+                    .doFinally(signal -> inFlightLoadMap.remove(key, newLoad))
+                    .subscribe(newLoad::complete, newLoad::completeExceptionally, () -> newLoad.complete(null));
+
+            return Mono.fromFuture(newLoad, true);
+        });
+    }
+
+    private void refreshInBackground(String key, Supplier<Mono<RecommendationResponseDTO>> loader) {
+        // One refresh per key on this node
+        if (!refreshingKeySet.add(key)) {
+            return;
         }
+
+        // Lock is left to expire rather than deleted, by then the entry is fresh and nobody tries again
+        reactiveStringRedisTemplate.opsForValue()
+                .setIfAbsent(key + LOCK_SUFFIX, nodeID, Duration.ofSeconds(refreshLockSeconds))
+                .flatMap(isLocked -> {
+                    if (!Boolean.TRUE.equals(isLocked)) {
+                        log.info("[RecommendationCache] Refresh of key = {} already running on another node", key);
+                        return Mono.empty();
+                    }
+                    return loadCoalesced(key, loader);
+                })
+                .doFinally(signal -> refreshingKeySet.remove(key))
+                .subscribe(
+                        refreshed -> log.info("[RecommendationCache] Refreshed key = {}", key),
+                        ex -> log.error("[RecommendationCache] Refresh failed for key = {}: {}", key, ex.getMessage()));
     }
 
-    public void put(List<ProductSignalDTO> productSignalDTOList, RecommendationResponseDTO responseDTO) {
-        String key = buildKey(productSignalDTOList);
+    /**
+     * @return completes once stored, also if Redis fails
+     */
+    private Mono<Void> put(String key, RecommendationResponseDTO responseDTO) {
+        if (null == responseDTO.getProducts() || responseDTO.getProducts().isEmpty()) {
+            return Mono.empty();
+        }
+
+        twoTierCache.putLocal(key, responseDTO);
+
+        // Kept past the TTL for the stale window, the remaining TTL tells fresh from stale
+        Duration ttl = Duration.ofMinutes(cacheTtlMinutes + staleMinutes);
+
+        return reactiveRecommendationRedisTemplate.opsForValue().set(key, responseDTO, ttl)
+                .doOnSuccess(isStored -> log.info("[RecommendationCache] Stored key = {} TTL = {}min, stale after {}min", key, ttl.toMinutes(), cacheTtlMinutes))
+                .onErrorResume(ex -> {
+                    log.error("[RecommendationCache] Failed to write to Redis for key = {}: {}", key, ex.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // Stale hits count as hits, they save a recommender call on the request path
+    private double hitRatio() {
+        double hits = hitCounter.count() + staleHitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static class CachedRecommendation {
+        private final RecommendationResponseDTO responseDTO;
+        private final boolean isStale;
+
+        private CachedRecommendation(RecommendationResponseDTO responseDTO, boolean isStale) {
+            this.responseDTO = responseDTO;
+            this.isStale = isStale;
+        }
+
+        private RecommendationResponseDTO getResponseDTO() {
+            return responseDTO;
+        }
 
-        try {
-            recommendationRedisTemplate.opsForValue().set(key, responseDTO, cacheTtlMinutes, TimeUnit.MINUTES);
-            log.info("[RecommendationCache] Stored key = {} TTL = {}min", key, cacheTtlMinutes);
-        } catch (Exception ex) {
-            log.error("[RecommendationCache] Failed to write to Redis for key = {}: {}", key, ex.getMessage());
+        private boolean isStale() {
+            return isStale;
         }
     }
 }
@@ -0,0 +1,127 @@
+package com.gamersblended.junes.service.cache;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-process LRU cache bounded by the estimated size of its values rather than by entry count
+ * Entries also expire after a fixed TTL from when they were put
+ */
+public class SizeBoundedTtlCache<V> {
+
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final ToLongFunction<V> weigher;
+
+    // Access order, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, CacheEntry<V>> entryMap = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalWeight = 0;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param maxWeight max sum of weights before least recently used entries are evicted
+     * @param ttl       time an entry stays valid after being put
+     * @param weigher   estimated weight of a value, e.g. bytes
+     */
+    public SizeBoundedTtlCache(long maxWeight, Duration ttl, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttl.toMillis();
+        this.weigher = weigher;
+    }
+
+    public synchronized Optional<V> get(String key) {
+        CacheEntry<V> entry = entryMap.get(key);
+
+        if (null == entry) {
+            missCount.incrementAndGet();
+            return Optional.empty();
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            remove(key);
+            missCount.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hitCount.incrementAndGet();
+        return Optional.of(entry.value);
+    }
+
+    /**
+     * @return cached values of keys that are present and not expired, missing keys are left out
+     */
+    public synchronized Map<String, V> getAll(Collection<String> keys) {
+        Map<String, V> found = new HashMap<>();
+        for (String key : keys) {
+            get(key).ifPresent(value -> found.put(key, value));
+        }
+        return found;
+    }
+
+    public synchronized void put(String key, V value) {
+        long weight = weigher.applyAsLong(value);
+
+        // Value alone would flush the whole cache, not worth keeping
+        if (weight > maxWeight) {
+            remove(key);
+            return;
+        }
+
+        remove(key);
+        entryMap.put(key, new CacheEntry<>(value, weight, System.currentTimeMillis() + ttlMillis));
+        totalWeight += weight;
+
+        Iterator<Map.Entry<String, CacheEntry<V>>> iterator = entryMap.entrySet().iterator();
+        while (totalWeight > maxWeight && iterator.hasNext()) {
+            totalWeight -= iterator.next().getValue().weight;
+            iterator.remove();
+        }
+    }
+
+    public synchronized void invalidate(String key) {
+        remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        entryMap.clear();
+        totalWeight = 0;
+    }
+
+    public synchronized int size() {
+        return entryMap.size();
+    }
+
+    public synchronized long weight() {
+        return totalWeight;
+    }
+
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+    public long missCount() {
+        return missCount.get();
+    }
+
+    private void remove(String key) {
+        CacheEntry<V> removed = entryMap.remove(key);
+        if (null != removed) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long weight;
+        private final long expiresAt;
+
+        private CacheEntry(V value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.gamersblended.junes.service.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache with an in-process L1 (WindowTinyLfuCache, short TTL) in front of Redis as L2, values are JSON in Redis
+ * An L1 hit costs no Redis round trip and no JSON parse
+ * evict() removes the key from L2 and from the L1 of every node, through TwoTierCacheManager's pub/sub channel
+ * Other writes are not broadcast, the short L1 TTL bounds how long another node serves its older copy
+ * Created by TwoTierCacheManager
+ */
+@Slf4j
+public class TwoTierCache<V> {
+
+    private final String name;
+    private final WindowTinyLfuCache<V> l1Cache;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final JavaType valueType;
+    private final Duration l2Ttl;
+    private final BiConsumer<String, String> invalidationPublisher;
+
+    private final Counter l1HitCounter;
+    private final Counter l1MissCounter;
+    private final Counter l2HitCounter;
+    private final Counter l2MissCounter;
+
+    TwoTierCache(String name, WindowTinyLfuCache<V> l1Cache, StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                 JavaType valueType, Duration l2Ttl, BiConsumer<String, String> invalidationPublisher, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.l1Cache = l1Cache;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.valueType = valueType;
+        this.l2Ttl = l2Ttl;
+        this.invalidationPublisher = invalidationPublisher;
+
+        this.l1HitCounter = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l1", "result", "hit");
+        this.l1MissCounter = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l1", "result", "miss");
+        this.l2HitCounter = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l2", "result", "hit");
+        this.l2MissCounter = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l2", "result", "miss");
+
+        Gauge.builder("cache.tier.hit_ratio", this, cache -> hitRatio(cache.l1HitCounter, cache.l1MissCounter))
+                .tags("cache", name, "tier", "l1")
+                .register(meterRegistry);
+        Gauge.builder("cache.tier.hit_ratio", this, cache -> hitRatio(cache.l2HitCounter, cache.l2MissCounter))
+                .tags("cache", name, "tier", "l2")
+                .register(meterRegistry);
+        Gauge.builder("cache.tier.l1_size", l1Cache, WindowTinyLfuCache::size)
+                .tags("cache", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return value from L1, else from L2, empty on a miss or if Redis fails
+     */
+    public Optional<V> get(String key) {
+        Optional<V> localValue = getLocal(key);
+        if (localValue.isPresent()) {
+            return localValue;
+        }
+
+        try {
+            String json = redisTemplate.opsForValue().get(key);
+            if (null == json) {
+                recordL2(false);
+                return Optional.empty();
+            }
+
+            V value = objectMapper.readValue(json, valueType);
+            recordL2(true);
+            l1Cache.put(key, value);
+            return Optional.of(value);
+        } catch (Exception ex) {
+            log.error("[TwoTierCache] {} read failed for key = {}: {}", name, key, ex.getMessage());
+            recordL2(false);
+            return Optional.empty();
+        }
+    }
+
+    public void put(String key, V value) {
+        l1Cache.put(key, value);
+
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(value), l2Ttl);
+        } catch (Exception ex) {
+            log.error("[TwoTierCache] {} write failed for key = {}: {}", name, key, ex.getMessage());
+        }
+    }
+
+    /**
+     * Removes the key from L2 and from L1 on every node
+     *
+     * @return true if the key was in L2
+     */
+    public boolean evict(String key) {
+        l1Cache.invalidate(key);
+
+        boolean isDeleted = false;
+        try {
+            isDeleted = Boolean.TRUE.equals(redisTemplate.delete(key));
+        } catch (Exception ex) {
+            log.error("[TwoTierCache] {} eviction failed for key = {}: {}", name, key, ex.getMessage());
+        }
+
+        invalidationPublisher.accept(name, key);
+        return isDeleted;
+    }
+
+    /**
+     * L1 only, for callers that read L2 themselves, e.g. without blocking
+     */
+    public Optional<V> getLocal(String key) {
+        Optional<V> localValue = l1Cache.get(key);
+        (localValue.isPresent() ? l1HitCounter : l1MissCounter).increment();
+        return localValue;
+    }
+
+    /**
+     * L1 only, for callers that write L2 themselves
+     */
+    public void putLocal(String key, V value) {
+        l1Cache.put(key, value);
+    }
+
+    /**
+     * For callers that read L2 themselves, so L2 hit ratio still covers them
+     */
+    public void recordL2(boolean isHit) {
+        (isHit ? l2HitCounter : l2MissCounter).increment();
+    }
+
+    // From another node's evict, L2 is already done
+    void invalidateLocal(String key) {
+        l1Cache.invalidate(key);
+    }
+
+    private static double hitRatio(Counter hitCounter, Counter missCounter) {
+        double total = hitCounter.count() + missCounter.count();
+        return total == 0 ? 0 : hitCounter.count() / total;
+    }
+}
@@ -0,0 +1,89 @@
+package com.gamersblended.junes.service.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates TwoTierCaches and carries their evictions to every node over one Redis pub/sub channel
+ * Messages are "cacheName|key", a node also receives its own, which is harmless
+ */
+@Slf4j
+@Component
+public class TwoTierCacheManager implements MessageListener {
+
+    private static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final String invalidationChannel;
+
+    private final Map<String, TwoTierCache<?>> cacheByName = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(StringRedisTemplate redisTemplate,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               RedisMessageListenerContainer redisMessageListenerContainer,
+                               @Value("${cache.two-tier.invalidation-channel:cache-invalidation}") String invalidationChannel) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.invalidationChannel = invalidationChannel;
+
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(invalidationChannel));
+    }
+
+    /**
+     * @param name         unique cache name, used in metrics and invalidation messages
+     * @param valueType    type of values, for reading JSON from L2
+     * @param l1MaxEntries max entries in L1 of each node
+     * @param l1Ttl        time an entry stays in L1, keep it short since only evictions are broadcast
+     * @param l2Ttl        time an entry stays in Redis
+     */
+    public <V> TwoTierCache<V> create(String name, TypeReference<V> valueType, int l1MaxEntries, Duration l1Ttl, Duration l2Ttl) {
+        TwoTierCache<V> cache = new TwoTierCache<>(name, new WindowTinyLfuCache<>(l1MaxEntries, l1Ttl), redisTemplate, objectMapper,
+                objectMapper.getTypeFactory().constructType(valueType), l2Ttl, this::publishInvalidation, meterRegistry);
+
+        if (null != cacheByName.putIfAbsent(name, cache)) {
+            throw new IllegalStateException("Two-tier cache already exists: " + name);
+        }
+        return cache;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separatorIndex = body.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            return;
+        }
+
+        TwoTierCache<?> cache = cacheByName.get(body.substring(0, separatorIndex));
+        if (null != cache) {
+            cache.invalidateLocal(body.substring(separatorIndex + 1));
+        }
+    }
+
+    private void publishInvalidation(String name, String key) {
+        try {
+            redisTemplate.convertAndSend(invalidationChannel, name + SEPARATOR + key);
+        } catch (Exception ex) {
+            // Other nodes drop the key from L1 once its TTL runs out
+            log.error("[TwoTierCacheManager] Failed to publish invalidation of {} in {}: {}", key, name, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.gamersblended.junes.service.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-process cache bounded by entry count, with W-TinyLFU admission
+ * New entries go to a small LRU window, an entry pushed out of the window only enters the main LRU region
+ * if it was requested more often than the entry it would evict, so a burst of one-off keys cannot flush popular ones
+ * Entries also expire after a fixed TTL from when they were put
+ */
+public class WindowTinyLfuCache<V> {
+
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final long ttlMillis;
+    private final FrequencySketch sketch;
+
+    // Access order, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, CacheEntry<V>> windowMap = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, CacheEntry<V>> mainMap = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * @param maxEntries max entries in window and main region together, 1% goes to the window
+     * @param ttl        time an entry stays valid after being put
+     */
+    public WindowTinyLfuCache(int maxEntries, Duration ttl) {
+        this.windowCapacity = Math.max(1, maxEntries / 100);
+        this.mainCapacity = Math.max(1, maxEntries - windowCapacity);
+        this.ttlMillis = ttl.toMillis();
+        this.sketch = new FrequencySketch(maxEntries);
+    }
+
+    public synchronized Optional<V> get(String key) {
+        sketch.increment(key);
+
+        CacheEntry<V> entry = windowMap.get(key);
+        if (null == entry) {
+            entry = mainMap.get(key);
+        }
+        if (null == entry) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            invalidate(key);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value);
+    }
+
+    public synchronized void put(String key, V value) {
+        sketch.increment(key);
+        CacheEntry<V> entry = new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis);
+
+        // Already admitted, replace in place
+        if (mainMap.containsKey(key)) {
+            mainMap.put(key, entry);
+            return;
+        }
+
+        windowMap.put(key, entry);
+        if (windowMap.size() > windowCapacity) {
+            Iterator<Map.Entry<String, CacheEntry<V>>> iterator = windowMap.entrySet().iterator();
+            Map.Entry<String, CacheEntry<V>> candidate = iterator.next();
+            iterator.remove();
+            offerToMain(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    public synchronized void invalidate(String key) {
+        windowMap.remove(key);
+        mainMap.remove(key);
+    }
+
+    public synchronized int size() {
+        return windowMap.size() + mainMap.size();
+    }
+
+    private void offerToMain(String candidateKey, CacheEntry<V> candidateEntry) {
+        if (mainMap.size() < mainCapacity) {
+            mainMap.put(candidateKey, candidateEntry);
+            return;
+        }
+
+        Iterator<Map.Entry<String, CacheEntry<V>>> iterator = mainMap.entrySet().iterator();
+        Map.Entry<String, CacheEntry<V>> victim = iterator.next();
+
+        // An expired victim is worth nothing, otherwise the more frequent of the two stays
+        if (victim.getValue().expiresAt <= System.currentTimeMillis()
+                || sketch.frequency(candidateKey) > sketch.frequency(victim.getKey())) {
+            iterator.remove();
+            mainMap.put(candidateKey, candidateEntry);
+        }
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private CacheEntry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
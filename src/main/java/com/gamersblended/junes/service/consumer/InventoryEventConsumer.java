@@ -0,0 +1,50 @@
+package com.gamersblended.junes.service.consumer;
+
+import com.gamersblended.junes.dto.event.BaseEvent;
+import com.gamersblended.junes.dto.event.InventoryChangedEvent;
+import com.gamersblended.junes.repository.catalogue.ProductCatalogueIndex;
+import com.gamersblended.junes.service.cache.ProductDetailsCacheService;
+import com.gamersblended.junes.service.cache.ProductMetadataCacheService;
+import com.gamersblended.junes.util.KafkaEventParser;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import static com.gamersblended.junes.constant.KafkaConstants.INVENTORY_EVENTS;
+
+@Slf4j
+@Service
+public class InventoryEventConsumer {
+
+    private final KafkaEventParser kafkaEventParser;
+    private final ProductCatalogueIndex productCatalogueIndex;
+    private final ProductMetadataCacheService productMetadataCacheService;
+    private final ProductDetailsCacheService productDetailsCacheService;
+
+    public InventoryEventConsumer(KafkaEventParser kafkaEventParser, ProductCatalogueIndex productCatalogueIndex, ProductMetadataCacheService productMetadataCacheService, ProductDetailsCacheService productDetailsCacheService) {
+        this.kafkaEventParser = kafkaEventParser;
+        this.productCatalogueIndex = productCatalogueIndex;
+        this.productMetadataCacheService = productMetadataCacheService;
+        this.productDetailsCacheService = productDetailsCacheService;
+    }
+
+    // One group per node: every node keeps its own in-memory index and caches, so every node needs every event
+    // Stable across restarts, so a restarted node resumes from its committed offset instead of leaving an orphaned group behind
+    @KafkaListener(topics = INVENTORY_EVENTS, groupId = "catalogue-index-${catalogue.index.node-id:${HOSTNAME:local}}")
+    public void onInventoryChanged(ConsumerRecord<String, String> inventoryEventRecord, Acknowledgment ack) {
+        BaseEvent parsed = kafkaEventParser.parse(inventoryEventRecord.value());
+
+        if (parsed instanceof InventoryChangedEvent event) {
+            log.info("[InventoryEventConsumer] Product {} stock {} -> {} ({})", event.getProductID(),
+                    event.getPreviousStock(), event.getCurrentStock(), event.getReason());
+            productCatalogueIndex.updateStock(event.getProductID(), event.getCurrentStock());
+            productMetadataCacheService.invalidate(event.getProductID());
+            // Events are keyed by productID, so they arrive in stock order and the last one wins
+            productDetailsCacheService.updateStock(event.getProductID(), event.getCurrentStock());
+        }
+
+        ack.acknowledge();
+    }
+}
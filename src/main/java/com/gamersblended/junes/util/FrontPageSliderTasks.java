@@ -0,0 +1,30 @@
+package com.gamersblended.junes.util;
+
+import com.gamersblended.junes.service.cache.FrontPageSliderCacheService;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Slf4j
+@Component
+public class FrontPageSliderTasks {
+
+    private final FrontPageSliderCacheService frontPageSliderCacheService;
+
+    public FrontPageSliderTasks(FrontPageSliderCacheService frontPageSliderCacheService) {
+        this.frontPageSliderCacheService = frontPageSliderCacheService;
+    }
+
+    // Tomorrow is ranked ahead too, so sliders stay served from Redis across midnight
+    @Scheduled(fixedDelayString = "${frontpage.sliders.refresh-interval-ms:600000}", initialDelayString = "${frontpage.sliders.initial-delay-ms:10000}")
+    @SchedulerLock(name = "FrontPageSliderTask", lockAtMostFor = "${frontpage.sliders.lock-at-most}", lockAtLeastFor = "${frontpage.sliders.lock-at-least}")
+    public void scheduledMaterialiseFrontPageSliders() {
+        log.info("Starting scheduled materialisation of front page sliders...");
+        LocalDate today = LocalDate.now();
+        frontPageSliderCacheService.materialise(today);
+        frontPageSliderCacheService.materialise(today.plusDays(1));
+    }
+}
@@ -22,7 +22,8 @@ public class KafkaEventParser {
             KafkaConstants.PAYMENT_METHOD_DETACHED, StripePaymentMethodDetachEvent.class,
             KafkaConstants.ORDER_CREATED, OrderCreatedEvent.class,
             KafkaConstants.PAYMENT_SUCCEEDED, PaymentSucceededEvent.class,
-            KafkaConstants.PAYMENT_FAILED, PaymentFailedEvent.class
+            KafkaConstants.PAYMENT_FAILED, PaymentFailedEvent.class,
+            KafkaConstants.INVENTORY_CHANGED, InventoryChangedEvent.class
     );
 
     public KafkaEventParser(ObjectMapper objectMapper) {
@@ -0,0 +1,26 @@
+package com.gamersblended.junes.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between BigDecimal prices and long cents, for arithmetic on many prices without BigDecimal allocations
+ */
+public class MoneyUtils {
+
+    private MoneyUtils() {
+        /* This utility class should not be instantiated */
+    }
+
+    /**
+     * @param amount price with up to 2 decimal places, more are rounded half up
+     * @return amount in cents
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
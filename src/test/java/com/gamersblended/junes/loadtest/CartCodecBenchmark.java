@@ -0,0 +1,126 @@
+package com.gamersblended.junes.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gamersblended.junes.model.Cart;
+import com.gamersblended.junes.model.CartItem;
+import com.gamersblended.junes.repository.CartCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compares the binary cart layout of CartCodec with its Jackson JSON layout: encode time, decode time and bytes per cart
+ * Single threaded and in-process, no Redis needed:
+ * <p>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.gamersblended.junes.loadtest.CartCodecBenchmark
+ * -Dbench.items=1,10,50
+ * <p>
+ * System properties: bench.items (cart sizes to measure), bench.iterations, bench.warmup-iterations
+ */
+@Slf4j
+public class CartCodecBenchmark {
+
+    private static final List<String> ALL_CODECS = List.of("binary", "json");
+
+    // Read after measuring, so the JIT cannot drop the encode and decode calls as unused
+    private static long sink;
+
+    private CartCodecBenchmark() {
+        /* Entry point only */
+    }
+
+    public static void main(String[] args) throws IOException {
+        int iterations = Integer.getInteger("bench.iterations", 200_000);
+        int warmupIterations = Integer.getInteger("bench.warmup-iterations", 50_000);
+        int[] itemCounts = Arrays.stream(System.getProperty("bench.items", "1,10,50").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        log.info("[CartCodecBenchmark] {} iterations after {} warmup iterations", iterations, warmupIterations);
+        for (int itemCount : itemCounts) {
+            Cart cart = buildCart(itemCount);
+
+            for (String codecName : ALL_CODECS) {
+                CartCodec cartCodec = new CartCodec(objectMapper, codecName);
+
+                measure(cartCodec, cart, warmupIterations);
+                Result result = measure(cartCodec, cart, iterations);
+                log.info("[CartCodecBenchmark] {} items {}", itemCount, result.format(codecName));
+            }
+        }
+        log.info("[CartCodecBenchmark] sink = {}", sink);
+    }
+
+    private static Result measure(CartCodec cartCodec, Cart cart, int iterations) throws IOException {
+        byte[] encoded = cartCodec.encode(cart);
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += cartCodec.encode(cart).length;
+        }
+        long encodeNanos = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += cartCodec.decode(encoded).getItemList().size();
+        }
+        long decodeNanos = System.nanoTime() - startTime;
+
+        return new Result(encoded.length, (double) encodeNanos / iterations, (double) decodeNanos / iterations);
+    }
+
+    // Same shape as a live cart: ObjectId product IDs, two-decimal prices, timestamps on cart and items
+    private static Cart buildCart(int itemCount) {
+        LocalDateTime now = LocalDateTime.now();
+        Cart cart = Cart.builder()
+                .cartID(UUID.randomUUID())
+                .userID(UUID.randomUUID())
+                .sessionID(UUID.randomUUID())
+                .createdOn(now)
+                .updatedOn(now)
+                .version(itemCount)
+                .build();
+
+        for (int i = 0; i < itemCount; i++) {
+            CartItem item = new CartItem();
+            item.setCartItemID(UUID.randomUUID());
+            item.setCart(cart);
+            item.setProductID(new ObjectId().toHexString());
+            item.setPrice(new BigDecimal("59.90"));
+            item.setQuantity(1 + i % 3);
+            item.setCreatedOn(now);
+            item.setUpdatedOn(now);
+            cart.addItem(item);
+        }
+        return cart;
+    }
+
+    private static class Result {
+        private final int bytes;
+        private final double encodeNanos;
+        private final double decodeNanos;
+
+        private Result(int bytes, double encodeNanos, double decodeNanos) {
+            this.bytes = bytes;
+            this.encodeNanos = encodeNanos;
+            this.decodeNanos = decodeNanos;
+        }
+
+        private String format(String codecName) {
+            return String.format("%-6s %6d bytes, encode %8.0f ns/op, decode %8.0f ns/op", codecName, bytes, encodeNanos, decodeNanos);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.gamersblended.junes.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gamersblended.junes.dto.CartItemDTO;
+import com.gamersblended.junes.mapper.CartProductMapper;
+import com.gamersblended.junes.repository.*;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.mapstruct.factory.Mappers;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of the cart storage engines, many threads adding, updating and removing items of the same cart
+ * Reports throughput, latency percentiles and CAS failures (writes given up after all retries) per engine
+ * Lives with the tests so it is not packaged, runs without the Spring context, so only Redis is needed, e.g. the redis service of docker-compose.yml:
+ * <p>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.gamersblended.junes.loadtest.CartStorageLoadTest
+ * -Dload.threads=16 -Dload.engines=json-binary,hash
+ * <p>
+ * System properties: redis.host, redis.port, redis.password, load.engines (json-binary, json-json, hash),
+ * load.threads, load.operations-per-thread, load.products, load.warmup-operations
+ * Do not point it at a shared Redis, it writes and deletes carts of random session IDs
+ */
+@Slf4j
+public class CartStorageLoadTest {
+
+    private static final List<String> ALL_ENGINES = List.of("json-binary", "json-json", "hash");
+
+    private CartStorageLoadTest() {
+        /* Entry point only */
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Integer.getInteger("load.threads", 16);
+        int operationsPerThread = Integer.getInteger("load.operations-per-thread", 2000);
+        int productCount = Integer.getInteger("load.products", 10);
+        int warmupOperations = Integer.getInteger("load.warmup-operations", 500);
+        List<String> engineList = Arrays.asList(System.getProperty("load.engines", String.join(",", ALL_ENGINES)).split(","));
+
+        RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration(
+                System.getProperty("redis.host", "localhost"), Integer.getInteger("redis.port", 6379));
+        String redisPassword = System.getProperty("redis.password", "");
+        if (!redisPassword.isEmpty()) {
+            redisConfig.setPassword(redisPassword);
+        }
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(redisConfig);
+        connectionFactory.afterPropertiesSet();
+
+        try {
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+            CartScriptRegistry cartScriptRegistry = new CartScriptRegistry(redisTemplate);
+            cartScriptRegistry.loadAll();
+
+            List<String> productIDList = new ArrayList<>();
+            for (int i = 0; i < productCount; i++) {
+                productIDList.add(new ObjectId().toHexString());
+            }
+
+            List<Result> resultList = new ArrayList<>();
+            for (String engine : engineList) {
+                CartStorage cartStorage = buildCartStorage(engine.trim(), redisTemplate, cartScriptRegistry);
+
+                // Warm up connections, script cache and JIT before measuring
+                run(cartStorage, engine, 4, warmupOperations, productIDList);
+                resultList.add(run(cartStorage, engine, threads, operationsPerThread, productIDList));
+            }
+
+            log.info("[CartStorageLoadTest] {} threads x {} operations on one cart of {} products", threads, operationsPerThread, productCount);
+            resultList.forEach(result -> log.info("[CartStorageLoadTest] {}", result));
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    private static CartStorage buildCartStorage(String engine, StringRedisTemplate redisTemplate, CartScriptRegistry cartScriptRegistry) {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        CartProductMapper cartProductMapper = Mappers.getMapper(CartProductMapper.class);
+        GuestCartStaging guestCartStaging = new GuestCartStaging(redisTemplate, List.of());
+
+        return switch (engine) {
+            case "json-binary" -> new RedisCartRepository(redisTemplate, new CartCodec(objectMapper, "binary"), cartProductMapper, cartScriptRegistry, guestCartStaging);
+            case "json-json" -> new RedisCartRepository(redisTemplate, new CartCodec(objectMapper, "json"), cartProductMapper, cartScriptRegistry, guestCartStaging);
+            case "hash" -> new RedisHashCartRepository(redisTemplate, cartScriptRegistry, guestCartStaging);
+            default -> throw new IllegalArgumentException("Unknown cart storage engine: " + engine + ", expected one of " + ALL_ENGINES);
+        };
+    }
+
+    private static Result run(CartStorage cartStorage, String engine, int threads, int operationsPerThread, List<String> productIDList) throws InterruptedException {
+        UUID sessionID = UUID.randomUUID();
+        cartStorage.createCart(null, sessionID);
+
+        // Every product in cart first, so a false return can only be a write given up on
+        for (String productID : productIDList) {
+            cartStorage.addItem(null, sessionID, new CartItemDTO(productID, new BigDecimal("59.90"), 1, LocalDateTime.now()));
+        }
+
+        long[][] latencyNanos = new long[threads][operationsPerThread];
+        AtomicLong casFailures = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            long[] threadLatencyNanos = latencyNanos[t];
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    startGate.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                for (int i = 0; i < operationsPerThread; i++) {
+                    String productID = productIDList.get(random.nextInt(productIDList.size()));
+                    int operation = random.nextInt(10);
+                    long startTime = System.nanoTime();
+
+                    try {
+                        boolean isWritten;
+                        if (operation < 5) {
+                            isWritten = cartStorage.addItem(null, sessionID, new CartItemDTO(productID, new BigDecimal("59.90"), 1, LocalDateTime.now()));
+                        } else if (operation < 8) {
+                            isWritten = cartStorage.updateItemQuantity(null, sessionID, productID, 1 + random.nextInt(5));
+                        } else {
+                            isWritten = cartStorage.removeItem(null, sessionID, productID);
+                        }
+
+                        if (!isWritten) {
+                            casFailures.incrementAndGet();
+                        }
+                    } catch (Exception ex) {
+                        errors.incrementAndGet();
+                    }
+                    threadLatencyNanos[i] = System.nanoTime() - startTime;
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        startGate.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        cartStorage.deleteCart(null, sessionID);
+
+        long[] allLatencyNanos = Arrays.stream(latencyNanos).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(engine, allLatencyNanos, elapsedNanos, casFailures.get(), errors.get());
+    }
+
+    private static class Result {
+        private final String engine;
+        private final long[] sortedLatencyNanos;
+        private final long elapsedNanos;
+        private final long casFailures;
+        private final long errors;
+
+        private Result(String engine, long[] sortedLatencyNanos, long elapsedNanos, long casFailures, long errors) {
+            this.engine = engine;
+            this.sortedLatencyNanos = sortedLatencyNanos;
+            this.elapsedNanos = elapsedNanos;
+            this.casFailures = casFailures;
+            this.errors = errors;
+        }
+
+        private double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile * sortedLatencyNanos.length) - 1;
+            return sortedLatencyNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            int operations = sortedLatencyNanos.length;
+            return String.format("%-12s %8.0f ops/s, p50 %.2fms, p99 %.2fms, max %.2fms, CAS failures %d (%.2f%%), errors %d",
+                    engine,
+                    operations / (elapsedNanos / 1_000_000_000.0),
+                    percentileMillis(0.50),
+                    percentileMillis(0.99),
+                    percentileMillis(1.0),
+                    casFailures,
+                    100.0 * casFailures / operations,
+                    errors);
+        }
+    }
+}